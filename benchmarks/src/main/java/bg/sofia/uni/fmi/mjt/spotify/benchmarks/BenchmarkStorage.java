@@ -0,0 +1,45 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.storage.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.StorageState;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.util.Collection;
+
+public class BenchmarkStorage implements Storage {
+    private final StorageState state;
+
+    public BenchmarkStorage(int catalogSize) {
+        this.state = Catalog.state(catalogSize);
+    }
+
+    @Override
+    public StorageState load() {
+        return state;
+    }
+
+    @Override
+    public void saveUser(User user) {
+    }
+
+    @Override
+    public void savePlayCounts(Collection<Song> changed, Collection<Song> catalog) {
+    }
+
+    @Override
+    public void removeSongs(Collection<Song> removed) {
+    }
+
+    @Override
+    public void savePlaylist(int userId, String name) {
+    }
+
+    @Override
+    public void saveSongToPlaylist(int userId, String name, Song song) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,95 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.storage.StorageState;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class Catalog {
+    private static final long SEED = 42L;
+    private static final int VOCABULARY = 5_000;
+    private static final int MAX_WORDS = 3;
+    private static final int MAX_PLAYS = 10_000;
+    private static final String UNDERSCORE = "_";
+    private static final String SPACE = " ";
+    private static final String PASSWORD = "Passw0rd!";
+    private static final String EMAIL_DOMAIN = "@bench.com";
+    private static final String PLAYLIST = "playlist";
+
+    public static final int USERS = 1_000;
+    public static final int PLAYLIST_SONGS = 20;
+
+    private Catalog() {
+    }
+
+    public static String word(int index) {
+        return "w" + index;
+    }
+
+    public static String email(int userId) {
+        return "user" + userId + EMAIL_DOMAIN;
+    }
+
+    public static String password() {
+        return PASSWORD;
+    }
+
+    public static String playlist(int userId) {
+        return PLAYLIST + userId;
+    }
+
+    public static List<String> songLines(int size) {
+        Random random = new Random(SEED);
+        List<String> lines = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            String name = words(random) + UNDERSCORE + i;
+            String author = words(random);
+            lines.add(name + SPACE + author + SPACE + random.nextInt(MAX_PLAYS));
+        }
+
+        return lines;
+    }
+
+    public static List<Song> songs(int size) {
+        return songLines(size).stream()
+                .map(Song::of)
+                .toList();
+    }
+
+    public static StorageState state(int size) {
+        StorageState state = new StorageState();
+
+        for (int id = 0; id < USERS; id++) {
+            state.putUser(new User(id, email(id), PASSWORD));
+        }
+
+        List<Song> songs = songs(size);
+        for (Song song : songs) {
+            state.putSong(song.getFilename(), song.getCountPlays());
+        }
+
+        for (int id = 0; id < USERS; id++) {
+            state.putPlaylist(id, playlist(id));
+            for (int i = 0; i < PLAYLIST_SONGS; i++) {
+                state.addPlaylistSong(id, playlist(id), songs.get((id * PLAYLIST_SONGS + i) % size).getFilename());
+            }
+        }
+
+        return state;
+    }
+
+    private static String words(Random random) {
+        int count = 1 + random.nextInt(MAX_WORDS);
+        StringBuilder builder = new StringBuilder(word(random.nextInt(VOCABULARY)));
+
+        for (int i = 1; i < count; i++) {
+            builder.append(UNDERSCORE).append(word(random.nextInt(VOCABULARY)));
+        }
+
+        return builder.toString();
+    }
+}
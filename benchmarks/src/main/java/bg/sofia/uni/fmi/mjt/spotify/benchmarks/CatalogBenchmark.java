@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.song.SongIndex;
+import bg.sofia.uni.fmi.mjt.spotify.song.SongRanking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class CatalogBenchmark {
+    private static final long SEED = 7L;
+    private static final int TOP = 10;
+    private static final int QUERIES = 1_024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private List<Song> songs;
+    private SongIndex songIndex;
+    private SongRanking songRanking;
+    private String[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        songs = Catalog.songs(catalogSize);
+        songIndex = new SongIndex();
+        songRanking = new SongRanking();
+
+        for (Song song : songs) {
+            songIndex.add(song);
+            songRanking.add(song);
+        }
+
+        Random random = new Random(SEED);
+        queries = new String[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            String[] words = songs.get(random.nextInt(catalogSize)).getName().toLowerCase().split(" ");
+            queries[i] = random.nextBoolean() || words.length < 2
+                    ? new String[] {words[0]}
+                    : new String[] {words[0], words[1]};
+        }
+    }
+
+    @Benchmark
+    public List<Song> search() {
+        return songIndex.search(queries[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public List<Song> top() {
+        return songRanking.top(TOP);
+    }
+
+    @Benchmark
+    public void recordPlay() {
+        songRanking.recordPlay(songs.get(next++ % catalogSize));
+    }
+}
@@ -0,0 +1,107 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyExceptions;
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CommandExecutorBenchmark {
+    private static final int USER_ID = 12;
+    private static final String SPACE = " ";
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    private CommandExecutor commandExecutor;
+    private String login;
+    private String search;
+    private String top;
+    private String show;
+    private String addSong;
+    private String play;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        commandExecutor = new CommandExecutor(new BenchmarkStorage(catalogSize), FLUSH_INTERVAL);
+
+        Song song = Catalog.songs(catalogSize).get(catalogSize / 2);
+        String songName = song.getName().toLowerCase();
+        String firstWord = songName.substring(0, songName.indexOf(SPACE));
+
+        login = String.join(SPACE, "-1", "login", Catalog.email(USER_ID), Catalog.password());
+        search = String.join(SPACE, String.valueOf(USER_ID), "search", firstWord);
+        top = String.join(SPACE, String.valueOf(USER_ID), "top", "10");
+        show = String.join(SPACE, String.valueOf(USER_ID), "show-playlist", Catalog.playlist(USER_ID));
+        addSong = USER_ID + " add-song-to \"" + Catalog.playlist(USER_ID) + "\" \"" + songName + "\"";
+        play = String.join(SPACE, String.valueOf(USER_ID), "play", songName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        commandExecutor.close();
+    }
+
+    @Benchmark
+    public String login() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(login);
+    }
+
+    @Benchmark
+    public String search() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(search);
+    }
+
+    @Benchmark
+    public String top() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(top);
+    }
+
+    @Benchmark
+    public String showPlaylist() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(show);
+    }
+
+    @Benchmark
+    public String addSongTo() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(addSong);
+    }
+
+    @Benchmark
+    public String play() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(play);
+    }
+
+    @Benchmark
+    public String createPlaylist() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute(USER_ID + " create-playlist bench" + counter++);
+    }
+
+    @Benchmark
+    public String register() throws SpotifyExceptions, IOException {
+        return commandExecutor.execute("-1 register new" + counter++ + "@bench.com " + Catalog.password());
+    }
+}
@@ -0,0 +1,35 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.command.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CommandParseBenchmark {
+    @Param({
+        "12 login user12@bench.com Passw0rd!",
+        "12 search w1 w2 w3",
+        "12 add-song-to \"my playlist\" \"w1 w2 7\""
+    })
+    public String input;
+
+    @Benchmark
+    public Command parse() {
+        return Command.of(input);
+    }
+}
@@ -0,0 +1,166 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+import bg.sofia.uni.fmi.mjt.spotify.streaming.AudioSource;
+import bg.sofia.uni.fmi.mjt.spotify.streaming.DecodedAudioSource;
+import bg.sofia.uni.fmi.mjt.spotify.streaming.MappedAudioSource;
+import bg.sofia.uni.fmi.mjt.spotify.streaming.SongFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FramePumpBenchmark {
+    private static final float SAMPLE_RATE = 44_100F;
+    private static final int SAMPLE_BITS = 16;
+    private static final int CHANNELS = 2;
+    private static final int FRAME_SIZE = 4;
+    private static final int SECONDS = 10;
+    private static final int BUFFER_SIZE = 8_192;
+    private static final int MAX_POOLED = 1_024;
+    private static final int DRAIN_BUFFER = 1 << 20;
+    private static final int STREAM_ID = 1;
+    private static final Executor DIRECT = Runnable::run;
+
+    @Param({"4096", "65536"})
+    public int chunkSize;
+
+    private Path songPath;
+    private SongFile songFile;
+    private byte[] scratch;
+    private Selector selector;
+    private SocketChannel serverSide;
+    private SocketChannel clientSide;
+    private ClientSession session;
+    private Thread drainer;
+    private AudioSource mapped;
+    private AudioSource decoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, UnsupportedAudioFileException {
+        songPath = Files.createTempFile("spotify-bench", ".wav");
+        writeSong(songPath);
+        songFile = SongFile.map(songPath);
+        scratch = new byte[chunkSize];
+
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            clientSide = SocketChannel.open(listener.getLocalAddress());
+            serverSide = listener.accept();
+        }
+
+        serverSide.configureBlocking(false);
+        selector = Selector.open();
+        SelectionKey key = serverSide.register(selector, SelectionKey.OP_READ);
+        session = new ClientSession(key, new BufferPool(BUFFER_SIZE, MAX_POOLED), DIRECT, () -> { });
+
+        drainer = new Thread(this::drain, "bench-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+
+        mapped = new MappedAudioSource(songFile);
+        decoded = openDecoded();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        session.close();
+        clientSide.close();
+        selector.close();
+        Files.deleteIfExists(songPath);
+    }
+
+    @Benchmark
+    public int mappedZeroCopy() throws IOException {
+        int sent = mapped.transferTo(session, STREAM_ID, chunkSize, scratch);
+        if (sent < 0) {
+            mapped = new MappedAudioSource(songFile);
+            sent = mapped.transferTo(session, STREAM_ID, chunkSize, scratch);
+        }
+
+        flush();
+        return sent;
+    }
+
+    @Benchmark
+    public int decodedCopy() throws IOException, UnsupportedAudioFileException {
+        int sent = decoded.transferTo(session, STREAM_ID, chunkSize, scratch);
+        if (sent < 0) {
+            decoded.close();
+            decoded = openDecoded();
+            sent = decoded.transferTo(session, STREAM_ID, chunkSize, scratch);
+        }
+
+        flush();
+        return sent;
+    }
+
+    private void flush() throws IOException {
+        do {
+            session.flush();
+        } while (session.getPendingBytes() > 0);
+    }
+
+    private AudioSource openDecoded() throws IOException, UnsupportedAudioFileException {
+        return new DecodedAudioSource(songPath);
+    }
+
+    private void drain() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DRAIN_BUFFER);
+
+        try {
+            while (clientSide.read(buffer) >= 0) {
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            return;
+        }
+    }
+
+    private static void writeSong(Path path) throws IOException {
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, SAMPLE_BITS, CHANNELS, true, false);
+        byte[] pcm = new byte[(int) SAMPLE_RATE * FRAME_SIZE * SECONDS];
+        new Random(1L).nextBytes(pcm);
+
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(pcm), format,
+                pcm.length / FRAME_SIZE)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+    }
+}
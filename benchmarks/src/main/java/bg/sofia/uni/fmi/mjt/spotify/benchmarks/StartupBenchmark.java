@@ -0,0 +1,94 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.memory.MemoryStorage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.LogStorage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.StorageState;
+import bg.sofia.uni.fmi.mjt.spotify.storage.TextFileStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class StartupBenchmark {
+    private static final String USERS_FILE = "userData.txt";
+    private static final String SONGS_FILE = "availableSongs.txt";
+    private static final String PLAYLISTS_DIRECTORY = "playlists";
+    private static final String USERS_HEADER = "id email password";
+    private static final String SPACE = " ";
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private BenchmarkStorage memoryBootstrap;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        memoryBootstrap = new BenchmarkStorage(catalogSize);
+        directory = Files.createTempDirectory("spotify-bench");
+
+        try (LogStorage storage = new LogStorage(directory, memoryBootstrap)) {
+            storage.load();
+        }
+
+        List<String> users = new ArrayList<>();
+        users.add(USERS_HEADER);
+        for (int id = 0; id < Catalog.USERS; id++) {
+            users.add(id + SPACE + Catalog.email(id) + SPACE + Catalog.password());
+        }
+        Files.write(directory.resolve(USERS_FILE), users);
+        Files.write(directory.resolve(SONGS_FILE), Catalog.songLines(catalogSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path each : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(each);
+            }
+        }
+    }
+
+    @Benchmark
+    public MemoryStorage memoryStorage() {
+        return new MemoryStorage(memoryBootstrap);
+    }
+
+    @Benchmark
+    public StorageState textFileStorage() throws IOException {
+        TextFileStorage storage = new TextFileStorage(directory.resolve(USERS_FILE), directory.resolve(SONGS_FILE),
+                directory.resolve(PLAYLISTS_DIRECTORY));
+        return storage.load();
+    }
+
+    @Benchmark
+    public StorageState logStorage() throws IOException {
+        try (LogStorage storage = new LogStorage(directory, null)) {
+            return storage.load();
+        }
+    }
+}
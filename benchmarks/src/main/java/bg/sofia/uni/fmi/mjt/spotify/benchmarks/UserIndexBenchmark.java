@@ -0,0 +1,103 @@
+package bg.sofia.uni.fmi.mjt.spotify.benchmarks;
+
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+import bg.sofia.uni.fmi.mjt.spotify.user.UserTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserIndexBenchmark {
+    private static final String HASH_PREFIX = "pbkdf2$120000$3q2+7wAAAAAAAAAAAAAAAA==$";
+    private static final int GC_ROUNDS = 3;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int users;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytes;
+        private long baseline;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            baseline = usedHeap();
+        }
+
+        void measure() {
+            retainedBytes = usedHeap() - baseline;
+        }
+    }
+
+    @Benchmark
+    public Object[] concurrentMaps(Footprint footprint) {
+        Map<Integer, User> byId = new ConcurrentHashMap<>();
+        Map<String, Integer> byEmail = new ConcurrentHashMap<>();
+        fill(byId, byEmail);
+
+        footprint.measure();
+        return new Object[] {byId, byEmail};
+    }
+
+    @Benchmark
+    public Object[] hashMaps(Footprint footprint) {
+        Map<Integer, User> byId = new HashMap<>();
+        Map<String, Integer> byEmail = new HashMap<>();
+        fill(byId, byEmail);
+
+        footprint.measure();
+        return new Object[] {byId, byEmail};
+    }
+
+    @Benchmark
+    public UserTable userTable(Footprint footprint) {
+        UserTable table = new UserTable();
+        for (int id = 0; id < users; id++) {
+            table.add(user(id));
+        }
+
+        footprint.measure();
+        return table;
+    }
+
+    private void fill(Map<Integer, User> byId, Map<String, Integer> byEmail) {
+        for (int id = 0; id < users; id++) {
+            User user = user(id);
+            byId.put(id, user);
+            byEmail.put(user.email(), id);
+        }
+    }
+
+    private static User user(int id) {
+        return new User(id, Catalog.email(id), HASH_PREFIX + Integer.toHexString(id));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
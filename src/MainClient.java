@@ -6,9 +6,12 @@ import java.net.InetSocketAddress;
 public class MainClient {
     private static final int SERVER_PORT = 15157;
     private static final String SERVER_HOST = "localhost";
+    private static final String PREBUFFER_PROPERTY = "spotify.prebufferMillis";
+    private static final long DEFAULT_PREBUFFER_MILLIS = 500;
 
     public static void main(String[] args) {
-        Client client = new SpotifyClient(new InetSocketAddress(SERVER_HOST, SERVER_PORT));
+        Client client = new SpotifyClient(new InetSocketAddress(SERVER_HOST, SERVER_PORT),
+                Long.getLong(PREBUFFER_PROPERTY, DEFAULT_PREBUFFER_MILLIS));
         Thread clientThread = new Thread(client);
         clientThread.start();
     }
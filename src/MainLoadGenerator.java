@@ -0,0 +1,25 @@
+import bg.sofia.uni.fmi.mjt.spotify.loadgen.LoadConfig;
+import bg.sofia.uni.fmi.mjt.spotify.loadgen.LoadGenerator;
+
+import java.io.IOException;
+
+public class MainLoadGenerator {
+    public static void main(String[] args) {
+        LoadConfig config;
+        try {
+            config = LoadConfig.of(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(LoadConfig.USAGE);
+            return;
+        }
+
+        try {
+            new LoadGenerator(config).run();
+        } catch (IOException e) {
+            System.out.println("Load generator failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
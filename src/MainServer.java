@@ -1,30 +1,69 @@
 import bg.sofia.uni.fmi.mjt.spotify.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.memory.CatalogReloader;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsEndpoint;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsMBean;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
 import bg.sofia.uni.fmi.mjt.spotify.server.Server;
 import bg.sofia.uni.fmi.mjt.spotify.server.SpotifyServer;
+import bg.sofia.uni.fmi.mjt.spotify.storage.InstrumentedStorage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.LogStorage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.TextFileStorage;
+import bg.sofia.uni.fmi.mjt.spotify.user.PasswordHasher;
 
-import java.io.FileReader;
-import java.io.FileWriter;
+import javax.management.JMException;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
 
 public class MainServer {
     private static final String SERVER_HOST = "localhost";
     private static final int SERVER_PORT = 15157;
     private static final String USERS_FILE = "userData.txt";
     private static final String SONGS_FILE = "availableSongs.txt";
+    private static final String FLUSH_INTERVAL_PROPERTY = "spotify.flushIntervalMillis";
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 5_000;
+    private static final String PLAYLISTS_DIRECTORY = "playlists";
+    private static final String SONGS_DIRECTORY = "songs";
+    private static final String DATA_DIRECTORY = "data";
+    private static final String STORAGE_PROPERTY = "spotify.storage";
+    private static final String TEXT_STORAGE = "text";
+    private static final String LOG_STORAGE = "log";
+    private static final String METRICS_PORT_PROPERTY = "spotify.metricsPort";
+    private static final int DEFAULT_METRICS_PORT = 15158;
+    private static final String SESSION_IDLE_PROPERTY = "spotify.sessionIdleMinutes";
+    private static final long DEFAULT_SESSION_IDLE_MINUTES = 30;
+    private static final String PASSWORD_ITERATIONS_PROPERTY = "spotify.passwordIterations";
+    private static final long SERVER_SHUTDOWN_TIMEOUT_MILLIS = 15_000;
 
     public static void main(String[] args) {
-        try (
-                Reader userReader = new FileReader(USERS_FILE);
-                Writer userWriter = new FileWriter(USERS_FILE, true);
-                Reader songsReader = new FileReader(SONGS_FILE)
-        ) {
-            CommandExecutor commandExecutor = new CommandExecutor(userReader, userWriter, songsReader );
-
-            Server server = new SpotifyServer(commandExecutor, new InetSocketAddress(SERVER_HOST, SERVER_PORT));
+        try {
+            Duration flushInterval = Duration.ofMillis(
+                    Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL_MILLIS));
+            Storage textStorage = new TextFileStorage(Path.of(USERS_FILE), Path.of(SONGS_FILE),
+                    Path.of(PLAYLISTS_DIRECTORY));
+            Storage storage = TEXT_STORAGE.equals(System.getProperty(STORAGE_PROPERTY, LOG_STORAGE))
+                    ? textStorage
+                    : new LogStorage(Path.of(DATA_DIRECTORY), textStorage);
+
+            MetricsRegistry metrics = new MetricsRegistry();
+            PasswordHasher passwordHasher = new PasswordHasher(
+                    Integer.getInteger(PASSWORD_ITERATIONS_PROPERTY, PasswordHasher.DEFAULT_ITERATIONS), metrics);
+            CommandExecutor commandExecutor = new CommandExecutor(new InstrumentedStorage(storage, metrics),
+                    flushInterval, metrics, passwordHasher);
+
+            Duration sessionIdleTimeout = Duration.ofMinutes(
+                    Long.getLong(SESSION_IDLE_PROPERTY, DEFAULT_SESSION_IDLE_MINUTES));
+            Server server = new SpotifyServer(commandExecutor, new InetSocketAddress(SERVER_HOST, SERVER_PORT),
+                    metrics, sessionIdleTimeout);
+            CatalogReloader catalogReloader = new CatalogReloader(Path.of(SONGS_FILE), Path.of(SONGS_DIRECTORY),
+                    commandExecutor::reloadCatalog);
+            MetricsEndpoint endpoint = startMetrics(metrics);
+
             Thread serverThread = new Thread(server);
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    () -> shutdown(server, serverThread, commandExecutor, catalogReloader, endpoint)));
             serverThread.start();
 
             serverThread.join();
@@ -32,4 +71,51 @@ public class MainServer {
             throw new RuntimeException(e);
         }
     }
+
+    private static MetricsEndpoint startMetrics(MetricsRegistry metrics) throws IOException {
+        try {
+            MetricsMBean.register(metrics);
+        } catch (JMException e) {
+            System.out.println("Unable to register metrics in JMX: " + e.getMessage());
+        }
+
+        int port = Integer.getInteger(METRICS_PORT_PROPERTY, DEFAULT_METRICS_PORT);
+        if (port <= 0) {
+            return null;
+        }
+
+        MetricsEndpoint endpoint = new MetricsEndpoint(metrics, new InetSocketAddress(SERVER_HOST, port));
+        endpoint.start();
+        return endpoint;
+    }
+
+    private static void shutdown(Server server, Thread serverThread, CommandExecutor commandExecutor,
+                                 CatalogReloader catalogReloader, MetricsEndpoint endpoint) {
+        server.stop();
+
+        try {
+            serverThread.join(SERVER_SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (serverThread.isAlive()) {
+            System.out.println("Server did not drain its workers in time, saving state anyway");
+        }
+
+        try {
+            catalogReloader.close();
+        } catch (IOException e) {
+            System.out.println("Unable to stop watching the song catalog: " + e.getMessage());
+        }
+
+        if (endpoint != null) {
+            endpoint.stop();
+        }
+
+        try {
+            commandExecutor.close();
+        } catch (IOException e) {
+            System.out.println("Unable to save server state: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package bg.sofia.uni.fmi.mjt.spotify.client;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+public class AudioPlayer implements Runnable {
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final JitterBuffer buffer;
+
+    private volatile SourceDataLine dataLine;
+    private volatile boolean paused;
+
+    public AudioPlayer(JitterBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void run() {
+        byte[] chunk = new byte[CHUNK_SIZE];
+
+        try {
+            JitterBuffer.Segment segment;
+            while ((segment = buffer.awaitSegment()) != null) {
+                prepareLine(segment.getFormat());
+
+                int bytesRead;
+                while ((bytesRead = buffer.read(segment, chunk)) > 0) {
+                    dataLine.write(chunk, 0, bytesRead);
+                }
+
+                if (bytesRead == JitterBuffer.ABANDONED) {
+                    flushLine();
+                }
+            }
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.out.println("Unable to play the song: " + e.getMessage());
+        } finally {
+            buffer.close();
+            closeLine(false);
+        }
+    }
+
+    public void pause() {
+        paused = true;
+        buffer.pause();
+
+        SourceDataLine line = dataLine;
+        if (line != null) {
+            line.stop();
+        }
+    }
+
+    public void resume() {
+        paused = false;
+
+        SourceDataLine line = dataLine;
+        if (line != null) {
+            line.start();
+        }
+        buffer.resume();
+    }
+
+    public void abandon() {
+        paused = false;
+        buffer.resume();
+        buffer.abandon();
+
+        SourceDataLine line = dataLine;
+        if (line != null) {
+            line.flush();
+        }
+    }
+
+    private void prepareLine(AudioFormat format) throws LineUnavailableException {
+        SourceDataLine line = dataLine;
+        if (line != null && line.getFormat().matches(format)) {
+            return;
+        }
+
+        closeLine(true);
+
+        line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, format));
+        line.open();
+        if (!paused) {
+            line.start();
+        }
+        dataLine = line;
+    }
+
+    private void flushLine() {
+        SourceDataLine line = dataLine;
+        line.stop();
+        line.flush();
+
+        if (!paused) {
+            line.start();
+        }
+    }
+
+    private void closeLine(boolean drain) {
+        SourceDataLine line = dataLine;
+        if (line == null) {
+            return;
+        }
+
+        if (drain && line.isRunning()) {
+            line.drain();
+        } else {
+            line.stop();
+            line.flush();
+        }
+        line.close();
+        dataLine = null;
+    }
+}
@@ -1,15 +1,16 @@
 package bg.sofia.uni.fmi.mjt.spotify.client;
 
 import bg.sofia.uni.fmi.mjt.spotify.command.AvailableCommands;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.PayloadSink;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.StreamState;
 
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
-import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.SourceDataLine;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.SocketChannel;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -17,8 +18,6 @@ import java.util.Scanner;
 
 public class ClientCommandLineHandler {
 
-
-    private static final int BUFFER_MAX = 100_000;
     private static final String SPACE = " ";
 
     private static final String PROMPT = "> ";
@@ -30,11 +29,34 @@ public class ClientCommandLineHandler {
     private static final int FRAME = 4;
     private static final int FRAME_RATE = 5;
     private static final int ENDIAN = 6;
+    private static final int QUALITY_ARGUMENTS = 3;
+    private static final int CONTROL_ARGUMENTS = 2;
+    private static final int NO_STREAM = 0;
+
+    private static final String AUTO_QUALITY = "auto";
+    private static final String NO_SESSION = "-";
+
+    private static final int JITTER_BUFFER_SIZE = 2 * 1024 * 1024;
+    private static final long DEFAULT_PREBUFFER_MILLIS = 500;
 
     private static boolean isFirstCommand = true;
 
-    private int userId;
-    private int currentFrameSize;
+    private final QualityMonitor qualityMonitor = new QualityMonitor();
+    private final long prebufferMillis;
+    private volatile boolean autoQuality = true;
+    private volatile String sessionToken = NO_SESSION;
+    private volatile int currentStream = NO_STREAM;
+
+    private final List<String> streamControls = Arrays.asList(
+            AvailableCommands.STOP.getName(),
+            AvailableCommands.PAUSE.getName(),
+            AvailableCommands.RESUME.getName()
+    );
+
+    private final List<String> streamSettings = Arrays.asList(
+            AvailableCommands.SEEK.getName(),
+            AvailableCommands.QUALITY.getName()
+    );
 
     public List<String> commandsWithReply = new ArrayList<>(Arrays.asList(
             AvailableCommands.TOP.getName(),
@@ -43,6 +65,15 @@ public class ClientCommandLineHandler {
             AvailableCommands.CREATE_PLAYLIST.getName(),
             AvailableCommands.ADD_SONG.getName()
     ));
+
+    public ClientCommandLineHandler() {
+        this(DEFAULT_PREBUFFER_MILLIS);
+    }
+
+    public ClientCommandLineHandler(long prebufferMillis) {
+        this.prebufferMillis = prebufferMillis;
+    }
+
     private static void helpCommand() {
         System.out.println(
             """
@@ -58,7 +89,12 @@ public class ClientCommandLineHandler {
             add-song-to <name_of_the_playlist> <song>
             show-playlist <name_of_the_playlist>
             play <song>
-            stop
+            play-playlist <name_of_the_playlist> [--shuffle] [--repeat]
+            pause [stream-id]
+            resume [stream-id]
+            seek <seconds> [stream-id]
+            quality <auto|high|medium|low|minimal> [stream-id]
+            stop [stream-id]
             *******************************************
             """
         );
@@ -88,7 +124,13 @@ public class ClientCommandLineHandler {
             return startUpCommand(scanner);
         }
 
-        return userId + SPACE + message.strip();
+        return sessionToken + SPACE + message.strip();
+    }
+
+    public String disconnectCommand() {
+        String token = sessionToken;
+
+        return NO_SESSION.equals(token) ? null : token + SPACE + AvailableCommands.DISCONNECT.getName();
     }
 
     public String getCommand(String message) {
@@ -96,6 +138,20 @@ public class ClientCommandLineHandler {
         return message.split(SPACE)[1];
     }
 
+    public String withCurrentStream(String message) {
+        int stream = currentStream;
+        if (stream == NO_STREAM) {
+            return message;
+        }
+
+        String[] arguments = message.split(SPACE);
+        String command = arguments[1];
+        boolean control = streamControls.contains(command) && arguments.length == CONTROL_ARGUMENTS;
+        boolean setting = streamSettings.contains(command) && arguments.length == QUALITY_ARGUMENTS;
+
+        return control || setting ? message + SPACE + stream : message;
+    }
+
     public boolean isError(String line) {
         return line.contains("ERROR:");
     }
@@ -118,7 +174,7 @@ public class ClientCommandLineHandler {
         }
 
         if (command.equals(AvailableCommands.REGISTER.getName()) || command.equals(AvailableCommands.LOGIN.getName())) {
-            userId = Integer.parseInt(line);
+            sessionToken = line;
             printLine( PROMPT + "Successful " + command + "!");
             return;
         }
@@ -138,49 +194,123 @@ public class ClientCommandLineHandler {
         float sampleRate = Float.parseFloat(lineArguments[RATE]);
         int sampleSizeInBits = Integer.parseInt(lineArguments[SIZE_BITS]);
         int channels = Integer.parseInt(lineArguments[CHANNELS]);
-        this.currentFrameSize = Integer.parseInt(lineArguments[FRAME]);
+        int frameSize = Integer.parseInt(lineArguments[FRAME]);
         float frameRate = Float.parseFloat(lineArguments[FRAME_RATE]);
         boolean bigEndian = Boolean.parseBoolean(lineArguments[ENDIAN]);
 
         AudioFormat format = new AudioFormat(encoding, sampleRate, sampleSizeInBits,
-                channels, currentFrameSize, frameRate, bigEndian);
+                channels, frameSize, frameRate, bigEndian);
 
         return new DataLine.Info(SourceDataLine.class, format);
     }
 
-    public void playFunction(String line, SocketChannel playChannel) {
-        DataLine.Info info = createDataLine(line);
-
-        try {
-            SourceDataLine dataLine = (SourceDataLine) AudioSystem.getLine(info);
-            dataLine.open();
-            dataLine.start();
+    public boolean selectQuality(String message) {
+        String[] arguments = message.split(SPACE);
+        if (arguments.length < QUALITY_ARGUMENTS) {
+            return false;
+        }
 
-            ByteBuffer buff = ByteBuffer.allocate(BUFFER_MAX);
+        if (AUTO_QUALITY.equalsIgnoreCase(arguments[QUALITY_ARGUMENTS - 1])) {
+            autoQuality = true;
+            printLine(PROMPT + "Quality will be adjusted automatically!");
+            return true;
+        }
 
-            int byteCount;
-            while ((byteCount = playChannel.read(buff)) != -1) {
-                buff.flip();
+        autoQuality = false;
+        Quality quality = Quality.of(arguments[QUALITY_ARGUMENTS - 1]);
+        if (quality != null) {
+            qualityMonitor.setQuality(quality);
+        }
+        return false;
+    }
 
-                int remaining = buff.remaining();
-                remaining = remaining % currentFrameSize > 0 ?
-                        (remaining / currentFrameSize) * currentFrameSize : remaining;
+    public void playFunction(ServerConnection playConnection) {
+        JitterBuffer buffer = new JitterBuffer(JITTER_BUFFER_SIZE, prebufferMillis);
+        AudioPlayer player = new AudioPlayer(buffer);
 
-                byte[] byteArr = new byte[remaining];
-                buff.get(byteArr);
+        Thread playerThread = new Thread(player);
+        playerThread.setDaemon(true);
+        playerThread.start();
 
-                dataLine.write(byteArr, 0, remaining);
-                buff.clear();
+        PayloadSink audioSink = (streamId, payload) -> {
+            int bytes = payload.remaining();
+            buffer.write(streamId, payload);
+            adjustQuality(playConnection, bytes);
+        };
 
-                if (byteCount == 1) {
-                    break;
+        try {
+            Frame frame;
+            while ((frame = playConnection.receive(audioSink)) != null) {
+                switch (frame.type()) {
+                    case AUDIO_FORMAT -> {
+                        if (buffer.isSegmentOpen()) {
+                            player.abandon();
+                        }
+
+                        AudioFormat format = createDataLine(frame.text()).getFormats()[0];
+                        buffer.begin(frame.streamId(), format);
+                        currentStream = frame.streamId();
+                        qualityMonitor.start((long) (format.getFrameRate() * format.getFrameSize()),
+                                System.nanoTime());
+                    }
+                    case AUDIO_STATE -> {
+                        if (frame.streamId() == currentStream) {
+                            changeState(player, buffer, StreamState.valueOf(frame.text()));
+                        }
+                    }
+                    case AUDIO_END -> {
+                        if (frame.streamId() == currentStream) {
+                            qualityMonitor.stop();
+                            buffer.end();
+                            currentStream = NO_STREAM;
+                        }
+                    }
+                    case ERROR -> handleError(frame.text());
+                    default -> {
+                    }
                 }
             }
-
-            dataLine.drain();
-            dataLine.close();
-        } catch (LineUnavailableException | IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             handleError(e.getMessage());
+        } finally {
+            buffer.close();
+        }
+    }
+
+    private void adjustQuality(ServerConnection playConnection, int bytes) {
+        if (!autoQuality) {
+            return;
+        }
+
+        Quality next = qualityMonitor.onData(bytes, System.nanoTime());
+        if (next == null) {
+            return;
+        }
+
+        try {
+            playConnection.send(sessionToken + SPACE + AvailableCommands.QUALITY.getName() + SPACE + next.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void changeState(AudioPlayer player, JitterBuffer buffer, StreamState state) {
+        switch (state) {
+            case PAUSED -> {
+                qualityMonitor.pause();
+                player.pause();
+            }
+            case PLAYING -> {
+                qualityMonitor.resume(System.nanoTime());
+                player.resume();
+            }
+            case SWITCHING -> buffer.end();
+            case STOPPED -> {
+                qualityMonitor.stop();
+                player.abandon();
+            }
+            default -> {
+            }
         }
     }
 }
@@ -0,0 +1,219 @@
+package bg.sofia.uni.fmi.mjt.spotify.client;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class JitterBuffer {
+    public static final int END_OF_SEGMENT = -1;
+    public static final int ABANDONED = -2;
+    public static final int CLOSED = -3;
+
+    private static final long MILLIS_IN_SECOND = 1_000L;
+    private static final int NOT_ENDED = -1;
+
+    private final byte[] ring;
+    private final long prebufferMillis;
+    private final Deque<Segment> segments;
+
+    private long written;
+    private long read;
+    private long generation;
+    private boolean prebuffering;
+    private boolean paused;
+    private boolean closed;
+    private long underruns;
+    private long overruns;
+
+    public JitterBuffer(int capacity, long prebufferMillis) {
+        this.ring = new byte[capacity];
+        this.prebufferMillis = prebufferMillis;
+        this.segments = new ArrayDeque<>();
+        this.prebuffering = true;
+    }
+
+    public synchronized void begin(int streamId, AudioFormat format) {
+        segments.addLast(new Segment(streamId, format));
+        notifyAll();
+    }
+
+    public synchronized void end() {
+        Segment tail = segments.peekLast();
+
+        if (tail != null && tail.end == NOT_ENDED) {
+            tail.end = written;
+            notifyAll();
+        }
+    }
+
+    public synchronized boolean isSegmentOpen() {
+        Segment tail = segments.peekLast();
+        return tail != null && tail.end == NOT_ENDED;
+    }
+
+    public synchronized void abandon() {
+        segments.clear();
+        read = written;
+        generation++;
+        prebuffering = true;
+        notifyAll();
+    }
+
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public void write(int streamId, ByteBuffer payload) {
+        while (payload.hasRemaining()) {
+            synchronized (this) {
+                Segment tail = segments.peekLast();
+                if (closed || tail == null || tail.streamId != streamId || tail.end != NOT_ENDED) {
+                    return;
+                }
+
+                if (written - read == ring.length) {
+                    overruns++;
+                    if (!await()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                int offset = (int) (written % ring.length);
+                int length = (int) Math.min(payload.remaining(),
+                        Math.min(ring.length - (written - read), ring.length - offset));
+                payload.get(ring, offset, length);
+                written += length;
+                notifyAll();
+            }
+        }
+    }
+
+    public synchronized Segment awaitSegment() {
+        while (!closed && segments.isEmpty()) {
+            if (!await()) {
+                return null;
+            }
+        }
+
+        return closed ? null : segments.peekFirst();
+    }
+
+    public synchronized int read(Segment segment, byte[] destination) {
+        while (true) {
+            if (closed) {
+                return CLOSED;
+            }
+            if (segments.peekFirst() != segment || segment.generation != generation) {
+                return ABANDONED;
+            }
+
+            long end = segment.end == NOT_ENDED ? written : segment.end;
+            long available = end - read;
+            int frameSize = segment.frameSize;
+            long aligned = available - available % frameSize;
+
+            if (segment.end != NOT_ENDED && aligned == 0) {
+                read = segment.end;
+                segments.pollFirst();
+                prebuffering = true;
+                notifyAll();
+                return END_OF_SEGMENT;
+            }
+
+            if (prebuffering && segment.end == NOT_ENDED && available < segment.prebufferBytes) {
+                await();
+                continue;
+            }
+
+            if (aligned == 0 || paused) {
+                if (!prebuffering && !paused) {
+                    underruns++;
+                    prebuffering = true;
+                }
+                await();
+                continue;
+            }
+
+            prebuffering = false;
+            int offset = (int) (read % ring.length);
+            int length = (int) Math.min(Math.min(aligned, destination.length - destination.length % frameSize),
+                    ring.length - offset);
+
+            if (length < frameSize) {
+                System.arraycopy(ring, offset, destination, 0, length);
+                System.arraycopy(ring, 0, destination, length, frameSize - length);
+                length = frameSize;
+            } else {
+                length -= length % frameSize;
+                System.arraycopy(ring, offset, destination, 0, length);
+            }
+
+            read += length;
+            notifyAll();
+            return length;
+        }
+    }
+
+    public synchronized long getBufferedBytes() {
+        return written - read;
+    }
+
+    public synchronized long getUnderruns() {
+        return underruns;
+    }
+
+    public synchronized long getOverruns() {
+        return overruns;
+    }
+
+    private boolean await() {
+        try {
+            wait();
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public class Segment {
+        private final int streamId;
+        private final AudioFormat format;
+        private final int frameSize;
+        private final long prebufferBytes;
+        private final long generation;
+        private long end;
+
+        private Segment(int streamId, AudioFormat format) {
+            this.streamId = streamId;
+            this.format = format;
+            this.frameSize = Math.max(1, format.getFrameSize());
+            this.generation = JitterBuffer.this.generation;
+            this.end = NOT_ENDED;
+
+            long bytesPerSecond = (long) (format.getFrameRate() * frameSize);
+            long target = Math.min(bytesPerSecond * prebufferMillis / MILLIS_IN_SECOND, ring.length / 2);
+            this.prebufferBytes = target - target % frameSize;
+        }
+
+        public int getStreamId() {
+            return streamId;
+        }
+
+        public AudioFormat getFormat() {
+            return format;
+        }
+    }
+}
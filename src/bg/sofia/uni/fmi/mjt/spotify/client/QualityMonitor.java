@@ -0,0 +1,98 @@
+package bg.sofia.uni.fmi.mjt.spotify.client;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+
+import java.util.concurrent.TimeUnit;
+
+public class QualityMonitor {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final double NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double DOWNGRADE_RATIO = 0.9;
+    private static final int INITIAL_UPGRADE_WINDOWS = 5;
+    private static final int MAX_UPGRADE_WINDOWS = 40;
+
+    private volatile Quality quality;
+    private long byteRate;
+    private long windowStart;
+    private long windowBytes;
+    private boolean warmingUp;
+    private boolean active;
+    private int healthyWindows;
+    private int upgradeAfter;
+
+    public QualityMonitor() {
+        this.quality = Quality.HIGH;
+        this.upgradeAfter = INITIAL_UPGRADE_WINDOWS;
+    }
+
+    public void start(long bytesPerSecond, long nowNanos) {
+        byteRate = bytesPerSecond;
+        warmingUp = true;
+        resume(nowNanos);
+    }
+
+    public void pause() {
+        active = false;
+    }
+
+    public void resume(long nowNanos) {
+        active = byteRate > 0;
+        windowStart = nowNanos;
+        windowBytes = 0;
+    }
+
+    public void stop() {
+        active = false;
+        byteRate = 0;
+    }
+
+    public Quality getQuality() {
+        return quality;
+    }
+
+    public void setQuality(Quality quality) {
+        this.quality = quality;
+    }
+
+    public Quality onData(int bytes, long nowNanos) {
+        if (!active) {
+            return null;
+        }
+
+        windowBytes += bytes;
+        long elapsed = nowNanos - windowStart;
+        if (elapsed < WINDOW_NANOS) {
+            return null;
+        }
+
+        double ratio = windowBytes * NANOS_IN_SECOND / elapsed / byteRate;
+        resume(nowNanos);
+
+        if (warmingUp) {
+            warmingUp = false;
+            return null;
+        }
+
+        if (ratio < DOWNGRADE_RATIO) {
+            healthyWindows = 0;
+            upgradeAfter = Math.min(MAX_UPGRADE_WINDOWS, upgradeAfter * 2);
+            return change(quality.lower());
+        }
+
+        if (++healthyWindows >= upgradeAfter) {
+            healthyWindows = 0;
+            return change(quality.higher());
+        }
+
+        return null;
+    }
+
+    private Quality change(Quality next) {
+        if (next == quality) {
+            return null;
+        }
+
+        quality = next;
+        return next;
+    }
+}
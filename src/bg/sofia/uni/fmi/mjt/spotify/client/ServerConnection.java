@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.spotify.client;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameDecoder;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.PayloadSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServerConnection implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final FrameDecoder decoder;
+    private final ByteBuffer readBuffer;
+    private final AtomicInteger nextRequestId;
+
+    public ServerConnection(SocketChannel channel) {
+        this.channel = channel;
+        this.decoder = new FrameDecoder();
+        this.readBuffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        this.nextRequestId = new AtomicInteger();
+    }
+
+    public int send(String command) throws IOException {
+        int requestId = nextRequestId.incrementAndGet();
+        ByteBuffer frame = Frame.of(FrameType.COMMAND, requestId, command).encode();
+
+        synchronized (channel) {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        }
+
+        return requestId;
+    }
+
+    public Frame receive() throws IOException {
+        return receive(null);
+    }
+
+    public Frame receive(PayloadSink audioSink) throws IOException {
+        Frame frame;
+        while ((frame = decoder.decode(readBuffer, audioSink)) == null) {
+            readBuffer.clear();
+
+            if (channel.read(readBuffer) < 0) {
+                return null;
+            }
+
+            readBuffer.flip();
+        }
+
+        return frame;
+    }
+
+    public Frame receiveReply(int requestId) throws IOException {
+        Frame frame;
+        while ((frame = receive()) != null) {
+            boolean isReply = frame.type() == FrameType.RESPONSE || frame.type() == FrameType.ERROR;
+
+            if (isReply && frame.streamId() == requestId) {
+                return frame;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,21 +1,24 @@
 package bg.sofia.uni.fmi.mjt.spotify.client;
 
 import bg.sofia.uni.fmi.mjt.spotify.command.AvailableCommands;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.InetSocketAddress;
-import java.nio.channels.Channels;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 
 public class SpotifyClient implements Client {
-    private final ClientCommandLineHandler clientHelper = new ClientCommandLineHandler();
+    private final ClientCommandLineHandler clientHelper;
     private final InetSocketAddress socketAddress;
 
     public SpotifyClient(InetSocketAddress socketAddress) {
+        this.clientHelper = new ClientCommandLineHandler();
+        this.socketAddress = socketAddress;
+    }
+
+    public SpotifyClient(InetSocketAddress socketAddress, long prebufferMillis) {
+        this.clientHelper = new ClientCommandLineHandler(prebufferMillis);
         this.socketAddress = socketAddress;
     }
 
@@ -29,24 +32,23 @@ public class SpotifyClient implements Client {
         try (
             SocketChannel commandsChannel = SocketChannel.open();
             SocketChannel playChannel = SocketChannel.open();
-            BufferedReader commandsReader =
-                    new BufferedReader(Channels.newReader(commandsChannel, StandardCharsets.ISO_8859_1));
-            PrintWriter commandsWriter =
-                    new PrintWriter(Channels.newWriter(commandsChannel, StandardCharsets.UTF_8), true);
-            BufferedReader playReader =
-                    new BufferedReader(Channels.newReader(playChannel, StandardCharsets.ISO_8859_1));
-            PrintWriter playWriter =
-                    new PrintWriter(Channels.newWriter(playChannel, StandardCharsets.UTF_8), true);
+            ServerConnection commandsConnection = new ServerConnection(commandsChannel);
+            ServerConnection playConnection = new ServerConnection(playChannel);
             Scanner scanner = new Scanner(System.in)
         ) {
 
             commandsChannel.connect(socketAddress);
             playChannel.connect(socketAddress);
 
+            Thread playThread = new Thread(() -> clientHelper.playFunction(playConnection));
+            playThread.setDaemon(true);
+            playThread.start();
+
             while (true) {
                 String message = clientHelper.startUpCommand(scanner);
 
                 if (message == null) {
+                    disconnect(commandsConnection);
                     break;
                 }
 
@@ -55,30 +57,31 @@ public class SpotifyClient implements Client {
                 }
 
                 String command = clientHelper.getCommand(message);
-                String line;
-
-                if (command.equals(AvailableCommands.PLAY.getName())) {
-                    playWriter.println(message);
-                    if ((line = playReader.readLine()) != null) {
-
-                        if (clientHelper.isError(line)) {
-                            clientHelper.handleError(line);
-                            continue;
-                        }
 
-                        Thread newThread = new Thread(() -> clientHelper.playFunction(line, playChannel));
-                        newThread.start();
-                    }
+                if (command.equals(AvailableCommands.QUALITY.getName()) && clientHelper.selectQuality(message)) {
+                    continue;
+                }
 
+                if (command.equals(AvailableCommands.PLAY.getName())
+                        || command.equals(AvailableCommands.PLAY_PLAYLIST.getName())) {
+                    playConnection.send(message);
                 } else {
-                    commandsWriter.println(message);
+                    int requestId = commandsConnection.send(clientHelper.withCurrentStream(message));
 
-                    line = commandsReader.readLine();
-                    clientHelper.handleServerResponse(command, line);
+                    Frame reply = commandsConnection.receiveReply(requestId);
+                    clientHelper.handleServerResponse(command, reply == null ? null : reply.text());
                 }
             }
         } catch (IOException e) {
             System.out.println("Unable to connect to the server. Please try again later");
         }
     }
+
+    private void disconnect(ServerConnection commandsConnection) throws IOException {
+        String message = clientHelper.disconnectCommand();
+
+        if (message != null) {
+            commandsConnection.receiveReply(commandsConnection.send(message));
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package bg.sofia.uni.fmi.mjt.spotify.command;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum AvailableCommands {
     HELP("help"),
     DISCONNECT("disconnect"),
@@ -11,14 +14,30 @@ public enum AvailableCommands {
     ADD_SONG("add-song-to"),
     SHOW_PLAYLIST("show-playlist"),
     PLAY("play"),
-    STOP("stop");
+    PLAY_PLAYLIST("play-playlist"),
+    STOP("stop"),
+    PAUSE("pause"),
+    RESUME("resume"),
+    SEEK("seek"),
+    QUALITY("quality");
+
+    private static final Map<String, AvailableCommands> BY_NAME = new HashMap<>();
 
+    static {
+        for (AvailableCommands each : values()) {
+            BY_NAME.put(each.name, each);
+        }
+    }
 
     private final String name;
     AvailableCommands(String name) {
         this.name = name;
     }
 
+    public static AvailableCommands of(String name) {
+        return BY_NAME.get(name);
+    }
+
     public String getName() {
         return this.name;
     }
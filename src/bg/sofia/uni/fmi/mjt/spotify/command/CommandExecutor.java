@@ -11,25 +11,44 @@ import bg.sofia.uni.fmi.mjt.spotify.exceptions.PlaylistAlreadyExistsException;
 import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyAccountAlreadyExistsException;
 import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyExceptions;
 import bg.sofia.uni.fmi.mjt.spotify.memory.MemoryStorage;
+import bg.sofia.uni.fmi.mjt.spotify.memory.PlayCountFlusher;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Histogram;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.spotify.playlist.Playlist;
+import bg.sofia.uni.fmi.mjt.spotify.playlist.PlaylistKey;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
 import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.song.SongCatalog;
+import bg.sofia.uni.fmi.mjt.spotify.song.SongRanking;
+import bg.sofia.uni.fmi.mjt.spotify.storage.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.TextFileStorage;
+import bg.sofia.uni.fmi.mjt.spotify.user.PasswordHasher;
 import bg.sofia.uni.fmi.mjt.spotify.user.User;
+import bg.sofia.uni.fmi.mjt.spotify.user.UserTable;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
-public class CommandExecutor {
+public class CommandExecutor implements Closeable {
 
     public static final String REGISTER = "register";
     public static final String LOGIN = "login";
@@ -39,131 +58,307 @@ public class CommandExecutor {
     public static final String ADD_SONG_TO = "add-song-to";
     public static final String SHOW_PLAYLIST = "show-playlist";
     public static final String PLAY_SONG = "play";
+    public static final String PLAY_PLAYLIST = "play-playlist";
     public static final String STOP = "stop";
+    public static final String PAUSE = "pause";
+    public static final String RESUME = "resume";
+    public static final String SEEK = "seek";
+    public static final String QUALITY = "quality";
     private static final String SPACE = " ";
-    private final Map<Integer, User> users;
-    private final Map<String, Integer> emails;
-    private final Map<String, Song> songs;
-    private final List<String> playlist;
-    private static int currId = 0;
+    private static final String SEMICOLON = ";";
+    private static final String SHUFFLE_FLAG = "--shuffle";
+    private static final String REPEAT_FLAG = "--repeat";
+    private final UserTable users;
+    private final AtomicReference<SongCatalog> catalog;
+    private final Map<PlaylistKey, Playlist> playlists;
+    private final AtomicInteger nextUserId;
     private static final int ZERO = 0;
     private static final int ONE = 1;
     private static final int TWO = 2;
-    private static final String PATH_TO = "playlists" + File.separator;
-    private static final String LOWER_LETTER = ".*[a-z].*";
-    private static final String UPPER_LETTER = ".*[A-Z].*";
-    private static final String DIGIT = ".*[\\d].*";
-    private static final String CHARACTER = ".*[,$!@#?].*";
-    private static final String MAIL_REGEX = "^[a-zA-Z\\d\\-@$!%*?&_.]+@[a-z.]+.(com|bg)$";
+    private static final int MILLIS_IN_SECOND = 1000;
+    private static final String PLAYLISTS_DIRECTORY = "playlists";
+    private static final String SONGS_FILE = "availableSongs.txt";
+    private static final String SONGS_DIRECTORY = "songs";
+    private static final String WAV = ".wav";
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(5);
+    private static final String SPECIAL_CHARACTERS = ",$!@#?";
+    private static final Pattern MAIL_PATTERN = Pattern.compile("^[a-zA-Z\\d\\-@$!%*?&_.]+@[a-z.]+.(com|bg)$");
     private static final int MIN_LETTERS = 8;
 
-    private final Writer userWriter;
+    private final Storage storage;
+    private final PlayCountFlusher playCountFlusher;
+    private final PasswordHasher passwordHasher;
+    private final Map<AvailableCommands, Histogram> commandLatencies;
+    private final Counter commandErrors;
+    private final Counter catalogReloads;
 
     public CommandExecutor(Reader userReader, Writer userWriter, Reader songReader) {
-        MemoryStorage memoryStorage  = new MemoryStorage(userReader, songReader);
+        this(userReader, userWriter, songReader, DEFAULT_FLUSH_INTERVAL);
+    }
 
-        this.userWriter = userWriter;
+    public CommandExecutor(Reader userReader, Writer userWriter, Reader songReader, Duration flushInterval) {
+        this(new TextFileStorage(userReader, userWriter, songReader,
+                Path.of(SONGS_FILE), Path.of(PLAYLISTS_DIRECTORY)), flushInterval);
+    }
 
-        this.users = memoryStorage.getUsers();
-        this.emails = memoryStorage.getEmails();
-        this.songs = memoryStorage.getSongs();
-        this.playlist = memoryStorage.getPlaylist();
+    public CommandExecutor(Storage storage, Duration flushInterval) {
+        this(storage, flushInterval, new MetricsRegistry());
+    }
 
-        currId = MemoryStorage.getCurrId();
+    public CommandExecutor(Storage storage, Duration flushInterval, MetricsRegistry metrics) {
+        this(storage, flushInterval, metrics, new PasswordHasher(PasswordHasher.DEFAULT_ITERATIONS, metrics));
     }
 
-    private void validateCommand(Command newCommand) throws SpotifyExceptions {
-        List<String> commands = Arrays.stream(AvailableCommands.values())
-                .map(AvailableCommands::getName)
-                .toList();
+    public CommandExecutor(Storage storage, Duration flushInterval, MetricsRegistry metrics,
+                           PasswordHasher passwordHasher) {
+        MemoryStorage memoryStorage  = new MemoryStorage(storage);
+
+        this.storage = storage;
+        this.passwordHasher = passwordHasher;
+
+        this.users = memoryStorage.getUsers();
+        this.catalog = new AtomicReference<>(memoryStorage.getCatalog());
+        this.playlists = memoryStorage.getPlaylists();
 
-        int id = newCommand.id();
+        this.nextUserId = new AtomicInteger(memoryStorage.getNextUserId());
+        this.playCountFlusher = new PlayCountFlusher(storage, () -> catalog.get().getSongs().values(),
+                flushInterval);
 
-        if (id == ZERO && !newCommand.command().equals(AvailableCommands.REGISTER.getName())
-                && !newCommand.command().equals(AvailableCommands.LOGIN.getName())) {
+        this.commandLatencies = new EnumMap<>(AvailableCommands.class);
+        for (AvailableCommands each : AvailableCommands.values()) {
+            commandLatencies.put(each,
+                    metrics.histogram("command_" + each.getName().replace('-', '_') + "_nanos"));
+        }
+        this.commandErrors = metrics.counter("command_errors_total");
+        metrics.gauge("users", users::size);
+        this.catalogReloads = metrics.counter("catalog_reloads_total");
+        metrics.gauge("songs", () -> catalog.get().getSongs().size());
+        metrics.gauge("playlists", playlists::size);
+    }
+
+    private AvailableCommands validateCommand(Command newCommand) throws SpotifyExceptions {
+        AvailableCommands type = AvailableCommands.of(newCommand.command());
+
+        if (newCommand.id() == ZERO && type != AvailableCommands.REGISTER && type != AvailableCommands.LOGIN) {
             throw new NoSuchUserException("First you need to login or register!");
         }
 
-        if (!commands.contains(newCommand.command())) {
+        if (type == null) {
             throw new NoSuchCommandException("Given command does not exists");
         }
+
+        return type;
     }
 
     public String execute(String input) throws SpotifyExceptions, IOException {
-        Command newCommand = Command.of(input);
-        validateCommand(newCommand);
+        return execute(() -> Command.of(input));
+    }
+
+    public String execute(int userId, String commandLine) throws SpotifyExceptions, IOException {
+        return execute(() -> Command.of(userId, commandLine));
+    }
+
+    public String execute(Command command) throws SpotifyExceptions, IOException {
+        return execute(() -> command);
+    }
+
+    private String execute(Supplier<Command> parser) throws SpotifyExceptions, IOException {
+        long start = System.nanoTime();
+        AvailableCommands type = null;
+        boolean failed = true;
+
+        try {
+            Command newCommand = parser.get();
+            type = validateCommand(newCommand);
+
+            String output = dispatch(type, newCommand);
+            failed = false;
+            return output;
+        } finally {
+            recordCommand(type, System.nanoTime() - start, failed);
+        }
+    }
 
-        return switch (newCommand.command()) {
+    private void recordCommand(AvailableCommands type, long nanos, boolean failed) {
+        if (failed) {
+            commandErrors.increment();
+        }
+
+        Histogram latency = type == null ? null : commandLatencies.get(type);
+        if (latency != null) {
+            latency.record(nanos);
+        }
+    }
+
+    private String dispatch(AvailableCommands type, Command newCommand) throws SpotifyExceptions, IOException {
+        return switch (type) {
             case REGISTER -> register(newCommand.arguments());
             case LOGIN -> login(newCommand.arguments());
             case SEARCH -> search(newCommand.arguments());
             case TOP -> top(newCommand.arguments());
             case CREATE_PLAYLIST -> createPlaylist(newCommand.id(), newCommand.arguments());
-            case ADD_SONG_TO -> addSongTo(newCommand.id(), newCommand.arguments());
+            case ADD_SONG -> addSongTo(newCommand.id(), newCommand.arguments());
             case SHOW_PLAYLIST -> showPlaylist(newCommand.id(), newCommand.arguments());
-            case PLAY_SONG -> playSong(newCommand.arguments());
+            case PLAY -> playSong(newCommand.arguments());
+            case PLAY_PLAYLIST -> playPlaylist(newCommand.id(), newCommand.arguments());
             case STOP -> stop(newCommand.arguments());
-            default -> null;
+            case PAUSE -> pause(newCommand.arguments());
+            case RESUME -> resume(newCommand.arguments());
+            case SEEK -> seek(newCommand.arguments());
+            case QUALITY -> quality(newCommand.arguments());
+            case HELP, DISCONNECT -> null;
         };
     }
 
     private String stop(String... arguments) throws InvalidCommandException {
-        if (arguments.length != ZERO) {
-            throw new InvalidCommandException("Command stop should not be followed by any arguments!");
+        if (arguments.length > ONE) {
+            throw new InvalidCommandException("Command stop can only be followed by a stream id!");
         }
 
-        return "STOP;";
+        return "STOP;" + streamId(arguments, ZERO);
     }
 
-    private void rewriteFile() throws IOException {
-        try (var writer = new BufferedWriter(new FileWriter("availableSongs.txt", false))) {
-            for (Song song : songs.values()) {
-                writer.write(song.getFilename() + SPACE + song.getCountPlays() + System.lineSeparator());
-            }
+    private String pause(String... arguments) throws InvalidCommandException {
+        if (arguments.length > ONE) {
+            throw new InvalidCommandException("Command pause can only be followed by a stream id!");
+        }
+
+        return "PAUSE;" + streamId(arguments, ZERO);
+    }
+
+    private String resume(String... arguments) throws InvalidCommandException {
+        if (arguments.length > ONE) {
+            throw new InvalidCommandException("Command resume can only be followed by a stream id!");
+        }
+
+        return "RESUME;" + streamId(arguments, ZERO);
+    }
+
+    private String seek(String... arguments) throws InvalidCommandException {
+        if (arguments.length != ONE && arguments.length != TWO) {
+            throw new InvalidCommandException("Please provide the position in seconds to seek to!");
+        }
+
+        double seconds;
+        try {
+            seconds = Double.parseDouble(arguments[ZERO]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCommandException("The position should be a number of seconds!");
+        }
+
+        if (!Double.isFinite(seconds) || seconds < ZERO) {
+            throw new InvalidCommandException("The position should be a non-negative number of seconds!");
+        }
+
+        return withStreamId("SEEK;" + Math.round(seconds * MILLIS_IN_SECOND), arguments, ONE);
+    }
+
+    private String quality(String... arguments) throws InvalidCommandException {
+        if (arguments.length != ONE && arguments.length != TWO || Quality.of(arguments[ZERO]) == null) {
+            throw new InvalidCommandException("Please provide one of the qualities: "
+                    + Arrays.stream(Quality.values()).map(Quality::getName).collect(Collectors.joining(", ")));
         }
+
+        return withStreamId("QUALITY;" + Quality.of(arguments[ZERO]).getName(), arguments, ONE);
+    }
+
+    private String withStreamId(String operation, String[] arguments, int index) throws InvalidCommandException {
+        return arguments.length > index ? operation + SEMICOLON + streamId(arguments, index) : operation;
     }
-    private String playSong(String... arguments) throws NoSuchSongException, IOException, InvalidCommandException {
+
+    private String streamId(String[] arguments, int index) throws InvalidCommandException {
+        if (arguments.length <= index) {
+            return "";
+        }
+
+        int streamId;
+        try {
+            streamId = Integer.parseInt(arguments[index]);
+        } catch (NumberFormatException e) {
+            streamId = ZERO;
+        }
+
+        if (streamId <= ZERO) {
+            throw new InvalidCommandException("The stream id should be a positive number!");
+        }
+        return String.valueOf(streamId);
+    }
+
+    private String playSong(String... arguments) throws NoSuchSongException, InvalidCommandException {
         if (arguments.length == ZERO) {
             throw new InvalidCommandException("Not enough arguments! Please provide a song name");
         }
 
-        String songName = String.join(SPACE, arguments).toLowerCase();
+        Song song = catalog.get().getSongs().get(String.join(SPACE, arguments).toLowerCase());
 
-        if (!songs.containsKey(songName)) {
+        if (song == null) {
             throw new NoSuchSongException("There is no song with the specified name");
         }
-        String fileName = "songs" + File.separator + songs.get(songName).getFilename() + ".wav";
-        songs.get(songName).incrementCount();
+        recordPlay(song);
+        return "PLAY;" + songPath(song);
+    }
+
+    private String playPlaylist(int id, String... arguments)
+            throws NoSuchPlaylistException, InvalidCommandException {
+
+        List<String> flags = List.of(SHUFFLE_FLAG, REPEAT_FLAG);
+        List<String> options = Arrays.stream(arguments).filter(flags::contains).toList();
+        String name = Arrays.stream(arguments).filter(p -> !flags.contains(p)).collect(Collectors.joining(SPACE));
+
+        if (name.isEmpty()) {
+            throw new InvalidCommandException("Not enough arguments! Please provide a playlist name");
+        }
+
+        Playlist playlist = playlists.get(new PlaylistKey(id, name));
+
+        if (playlist == null) {
+            throw new NoSuchPlaylistException("Playlist with this name does not exist!");
+        }
+
+        List<Song> playlistSongs = playlist.getSongs();
+        if (playlistSongs.isEmpty()) {
+            throw new InvalidCommandException("The playlist is empty!");
+        }
 
-        rewriteFile();
+        return "PLAYLIST;" + options.contains(SHUFFLE_FLAG) + SEMICOLON + options.contains(REPEAT_FLAG)
+                + SEMICOLON + playlistSongs.stream().map(this::songPath).collect(Collectors.joining(SEMICOLON));
+    }
+
+    private String songPath(Song song) {
+        return SONGS_DIRECTORY + File.separator + song.getFilename() + WAV;
+    }
+
+    public void recordPlay(String fileName) {
+        String name = Path.of(fileName).getFileName().toString();
+        if (!name.endsWith(WAV)) {
+            return;
+        }
+
+        Song song = catalog.get().findByFilename(name.substring(0, name.length() - WAV.length()));
+        if (song != null) {
+            recordPlay(song);
+        }
+    }
 
-        return "PLAY;" + fileName;
+    private void recordPlay(Song song) {
+        catalog.get().getRanking().recordPlay(song);
+        playCountFlusher.markDirty(song);
     }
 
     private String showPlaylist(int id, String... arguments)
-            throws NoSuchPlaylistException, InvalidCommandException, IOException {
+            throws NoSuchPlaylistException, InvalidCommandException {
 
         if (arguments.length == ZERO) {
             throw new InvalidCommandException("Not enough arguments! Please provide a playlist name");
         }
 
-        String file = id + SPACE + String.join(" ", arguments) + ".txt";
+        Playlist playlist = playlists.get(new PlaylistKey(id, String.join(SPACE, arguments)));
 
-        if (!playlist.contains(file)) {
+        if (playlist == null) {
             throw new NoSuchPlaylistException("Playlist with this name does not exist!");
         }
 
-        String path = PATH_TO + file;
-        List<String> songs;
-        try (var reader = new BufferedReader(new FileReader(path))) {
-            songs = reader.lines()
-                    .map(Song::of)
-                    .map(Song::toString)
-                    .distinct()
-                    .toList();
-        }
-
-        return songs.toString();
+        return playlist.toString();
     }
 
     private String addSongTo(int id, String... arguments) throws SpotifyExceptions, IOException {
@@ -172,22 +367,23 @@ public class CommandExecutor {
             throw new InvalidCommandException("Not enough arguments! Please provide a song and a playlist");
         }
 
-        String fileName = id + SPACE + arguments[ZERO] + ".txt";
+        Playlist playlist = playlists.get(new PlaylistKey(id, arguments[ZERO]));
 
-        if (!playlist.contains(fileName)) {
+        if (playlist == null) {
             throw new NoSuchPlaylistException("Playlist with this name does not exist!");
         }
 
-        if (!songs.containsKey(arguments[ONE])) {
+        Song toBeAdded = catalog.get().getSongs().get(arguments[ONE]);
+
+        if (toBeAdded == null) {
             throw new NoSuchSongException("There is no such song!");
         }
 
-        Song toBeAdded = songs.get(arguments[ONE]);
-        String path = PATH_TO + fileName;
-
-        try (var writer = new BufferedWriter(new FileWriter(path, true))) {
-            writer.write(toBeAdded.getFilename() + SPACE + toBeAdded.getCountPlays());
-            writer.write(System.lineSeparator());
+        synchronized (playlist) {
+            if (!playlist.contains(toBeAdded)) {
+                storage.saveSongToPlaylist(id, playlist.getName(), toBeAdded);
+                playlist.add(toBeAdded);
+            }
         }
 
         return "Song successfully added to the playlist!";
@@ -198,15 +394,17 @@ public class CommandExecutor {
             throw new InvalidCommandException("Please provide name for the playlist!");
         }
 
-        String fileName = id + SPACE + String.join(" ", arguments) + ".txt";
-        if (playlist.contains(fileName)) {
+        Playlist playlist = new Playlist(id, String.join(SPACE, arguments));
+        if (playlists.putIfAbsent(playlist.getKey(), playlist) != null) {
             throw new PlaylistAlreadyExistsException("Playlist with the same name already exists");
         }
 
-        playlist.add(fileName);
-        File newPlaylist = new File(PATH_TO + fileName);
-
-        newPlaylist.createNewFile();
+        try {
+            storage.savePlaylist(id, playlist.getName());
+        } catch (IOException e) {
+            playlists.remove(playlist.getKey(), playlist);
+            throw e;
+        }
 
         return "Playlist created successfully!";
     }
@@ -215,26 +413,18 @@ public class CommandExecutor {
             throw new InvalidCommandException("Not enough arguments! Please provide how many songs you want to see");
         }
 
-        return songs.values().stream()
-                .sorted(Comparator.comparing(Song::getCountPlays).reversed())
-                .limit(Integer.parseInt(argument[ZERO]))
+        return catalog.get().getRanking().top(Integer.parseInt(argument[ZERO])).stream()
                 .map(Song::toString)
                 .toList()
                 .toString();
     }
 
     private String search(String... arguments) throws InvalidCommandException {
-        List<String> argList = Arrays.stream(arguments).map(String::toLowerCase).toList();
-
         if (arguments.length == ZERO) {
             throw new InvalidCommandException("Not enough arguments! No search query provided");
         }
 
-        return songs.values().stream()
-                .filter(p -> new HashSet<>(Arrays.stream((p.getName() + SPACE + p.getAuthor())
-                                .toLowerCase().split(SPACE))
-                        .toList())
-                        .containsAll(argList))
+        return catalog.get().getIndex().search(arguments).stream()
                 .map(Song::toString)
                 .toList()
                 .toString();
@@ -244,17 +434,50 @@ public class CommandExecutor {
         if (arguments.length != TWO) {
             throw new InvalidCommandException("Not enough arguments! Please provide email and password");
         }
-        if (!emails.containsKey(arguments[ZERO])) {
+        User user = users.find(arguments[ZERO]);
+
+        if (user == null) {
             throw new NoSuchUserException("User with this email does not exist!");
         }
 
-        int returnId = emails.get(arguments[ZERO]);
-
-        if (!users.get(returnId).password().equals(arguments[ONE])) {
+        if (!passwordHasher.verify(arguments[ONE], user.password())) {
             throw new InvalidPasswordException("Wrong password!");
         }
 
-        return Integer.toString(returnId);
+        if (passwordHasher.needsRehash(user.password())) {
+            rehash(user, arguments[ONE]);
+        }
+
+        return Integer.toString(user.id());
+    }
+
+    private void rehash(User user, String password) {
+        User rehashed = new User(user.id(), user.email(), passwordHasher.hash(password));
+
+        try {
+            storage.saveUser(rehashed);
+            users.replace(user, rehashed);
+        } catch (IOException e) {
+            System.out.println("Unable to upgrade the password of user " + user.id() + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isStrongPassword(String password) {
+        boolean lower = false;
+        boolean upper = false;
+        boolean digit = false;
+        boolean special = false;
+
+        for (int i = 0; i < password.length(); i++) {
+            char current = password.charAt(i);
+
+            lower |= current >= 'a' && current <= 'z';
+            upper |= current >= 'A' && current <= 'Z';
+            digit |= current >= '0' && current <= '9';
+            special |= SPECIAL_CHARACTERS.indexOf(current) >= 0;
+        }
+
+        return password.length() >= MIN_LETTERS && lower && upper && digit && special;
     }
 
     private String register(String... arguments) throws SpotifyExceptions, IOException {
@@ -262,47 +485,102 @@ public class CommandExecutor {
             throw new InvalidCommandException("Not enough arguments! Please provide email and password");
         }
 
-        if (emails.containsKey(arguments[ZERO])) {
+        if (users.idOf(arguments[ZERO]) != UserTable.NO_USER) {
             throw new SpotifyAccountAlreadyExistsException("An account with this email already exists!");
         }
 
-        if (!arguments[ZERO].matches(MAIL_REGEX)) {
+        if (!MAIL_PATTERN.matcher(arguments[ZERO]).matches()) {
             throw new InvalidEmailException("Make sure your email is in the following format: username@domain.com/bg");
         }
 
-        String pass = arguments[ONE];
-        if (pass.length() < MIN_LETTERS || !pass.matches(LOWER_LETTER) || !pass.matches(UPPER_LETTER) ||
-                !pass.matches(DIGIT) || !pass.matches(CHARACTER)) {
+        if (!isStrongPassword(arguments[ONE])) {
             throw new InvalidPasswordException("Make sure your password is at least 8 characters, using letters," +
                     " numbers and special character [, $ ! @ # ?]");
         }
 
-        int id = currId++;
-        String newLine = String.join(SPACE, String.valueOf(id), arguments[ZERO], arguments[ONE]);
-        try (var writer = new BufferedWriter(userWriter)) {
-            writer.write(newLine);
-            writer.write(System.lineSeparator());
+        User user = new User(nextUserId.getAndIncrement(), arguments[ZERO], passwordHasher.hash(arguments[ONE]));
+        if (!users.add(user)) {
+            throw new SpotifyAccountAlreadyExistsException("An account with this email already exists!");
+        }
+
+        try {
+            storage.saveUser(user);
+        } catch (IOException e) {
+            users.remove(user);
+            throw e;
+        }
+
+        return Integer.toString(user.id());
+    }
+
+    public synchronized boolean reloadCatalog(Collection<Song> discovered) {
+        SongCatalog current = catalog.get();
+
+        Map<String, Song> previous = new HashMap<>();
+        for (Song each : current.getSongs().values()) {
+            previous.put(each.getFilename(), each);
+        }
+
+        Map<String, Song> next = new LinkedHashMap<>();
+        List<Song> added = new ArrayList<>();
+        for (Song each : discovered) {
+            if (next.containsKey(each.getFilename())) {
+                continue;
+            }
+
+            Song existing = previous.remove(each.getFilename());
+            next.put(each.getFilename(), existing != null ? existing : each);
+            if (existing == null) {
+                added.add(each);
+            }
+        }
+
+        if (added.isEmpty() && previous.isEmpty()) {
+            return false;
         }
-        emails.put(arguments[ZERO], id);
-        users.put(id, User.of(newLine));
 
+        SongRanking ranking = current.getRanking();
+        previous.values().forEach(ranking::remove);
+        catalog.set(SongCatalog.of(next.values(), ranking));
+        added.forEach(playCountFlusher::markDirty);
 
-        return Integer.toString(id);
+        if (!previous.isEmpty()) {
+            try {
+                playCountFlusher.remove(previous.values());
+            } catch (IOException e) {
+                System.out.println("Unable to save the removed songs: " + e.getMessage());
+            }
+        }
+
+        catalogReloads.increment();
+        System.out.println("Catalog reloaded: " + added.size() + " added, " + previous.size() + " removed");
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            playCountFlusher.close();
+        } finally {
+            storage.close();
+        }
     }
 
     public Map<Integer, User> getUsers() {
-        return Collections.unmodifiableMap(users);
+        return users.asMap();
     }
 
     public Map<String, Integer> getEmails() {
-        return Collections.unmodifiableMap(emails);
+        return users.emailIndex();
     }
 
     public Map<String, Song> getSongs() {
-        return Collections.unmodifiableMap(songs);
+        return catalog.get().getSongs();
     }
 
     public List<String> getPlaylist() {
-        return Collections.unmodifiableList(playlist);
+        return playlists.values().stream()
+                .map(Playlist::getFileName)
+                .toList();
     }
 }
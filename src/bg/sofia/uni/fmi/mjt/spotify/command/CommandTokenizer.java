@@ -0,0 +1,66 @@
+package bg.sofia.uni.fmi.mjt.spotify.command;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class CommandTokenizer {
+    private static final byte SPACE = ' ';
+    private static final byte QUOTE = '"';
+    private static final int INITIAL_TOKENS = 8;
+
+    private CommandTokenizer() {
+    }
+
+    public static String[] tokenize(String line) {
+        return tokenize(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static String[] tokenize(ByteBuffer input) {
+        String[] tokens = new String[INITIAL_TOKENS];
+        int count = 0;
+
+        int position = input.position();
+        int limit = input.limit();
+
+        while (position < limit) {
+            byte current = input.get(position);
+            if (isSpace(current)) {
+                position++;
+                continue;
+            }
+
+            boolean quoted = current == QUOTE;
+            int start = quoted ? position + 1 : position;
+            int end = start;
+            while (end < limit && (quoted ? input.get(end) != QUOTE : !isSpace(input.get(end)))) {
+                end++;
+            }
+            position = quoted ? end + 1 : end;
+
+            if (end > start) {
+                if (count == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, count * 2);
+                }
+                tokens[count++] = decode(input, start, end);
+            }
+        }
+
+        input.position(limit);
+        return count == tokens.length ? tokens : Arrays.copyOf(tokens, count);
+    }
+
+    private static boolean isSpace(byte current) {
+        return Byte.toUnsignedInt(current) <= SPACE;
+    }
+
+    private static String decode(ByteBuffer input, int start, int end) {
+        if (input.hasArray()) {
+            return new String(input.array(), input.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes = new byte[end - start];
+        input.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,9 @@
+package bg.sofia.uni.fmi.mjt.spotify.exceptions;
+
+public class NoActiveStreamException extends SpotifyExceptions {
+    private static final long serialVersionUID = 1L;
+
+    public NoActiveStreamException(String message) {
+        super(message);
+    }
+}
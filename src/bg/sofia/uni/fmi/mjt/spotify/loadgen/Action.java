@@ -0,0 +1,32 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import bg.sofia.uni.fmi.mjt.spotify.command.AvailableCommands;
+
+public enum Action {
+    REGISTER(AvailableCommands.REGISTER),
+    LOGIN(AvailableCommands.LOGIN),
+    SEARCH(AvailableCommands.SEARCH),
+    TOP(AvailableCommands.TOP),
+    PLAY(AvailableCommands.PLAY),
+    STOP(AvailableCommands.STOP);
+
+    private final AvailableCommands command;
+
+    Action(AvailableCommands command) {
+        this.command = command;
+    }
+
+    public String getName() {
+        return command.getName();
+    }
+
+    public static Action of(String name) {
+        for (Action action : values()) {
+            if (action.getName().equals(name)) {
+                return action;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown load action: " + name);
+    }
+}
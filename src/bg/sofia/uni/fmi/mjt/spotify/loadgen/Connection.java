@@ -0,0 +1,162 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+public class Connection {
+    private final VirtualUser owner;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Queue<ByteBuffer> output;
+    private final ByteBuffer header;
+
+    private FrameType type;
+    private int streamId;
+    private byte[] payload;
+    private int payloadPosition;
+    private int skipRemaining;
+
+    private Connection(VirtualUser owner, SocketChannel channel, Selector selector) throws IOException {
+        this.owner = owner;
+        this.channel = channel;
+        this.output = new ArrayDeque<>();
+        this.header = ByteBuffer.allocate(Frame.HEADER_SIZE);
+
+        channel.configureBlocking(false);
+        this.key = channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    public static Connection open(VirtualUser owner, InetSocketAddress address, Selector selector)
+            throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+
+        try {
+            return new Connection(owner, channel, selector);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public VirtualUser getOwner() {
+        return owner;
+    }
+
+    public void send(int requestId, String command) throws IOException {
+        ByteBuffer frame = Frame.of(FrameType.COMMAND, requestId, command).encode();
+
+        if (output.isEmpty()) {
+            channel.write(frame);
+        }
+
+        if (frame.hasRemaining()) {
+            output.add(frame);
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    public void flush() throws IOException {
+        ByteBuffer frame;
+        while ((frame = output.peek()) != null) {
+            channel.write(frame);
+
+            if (frame.hasRemaining()) {
+                return;
+            }
+            output.poll();
+        }
+
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    public void read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+
+        if (channel.read(buffer) < 0) {
+            throw new EOFException("Server closed the connection");
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            decode(buffer);
+        }
+    }
+
+    private void decode(ByteBuffer input) throws ProtocolException {
+        if (skipRemaining > 0) {
+            int skipped = Math.min(skipRemaining, input.remaining());
+            input.position(input.position() + skipped);
+            skipRemaining -= skipped;
+            return;
+        }
+
+        if (payload == null) {
+            while (header.hasRemaining() && input.hasRemaining()) {
+                header.put(input.get());
+            }
+
+            if (header.hasRemaining()) {
+                return;
+            }
+
+            int length = readHeader();
+            if (type == FrameType.AUDIO_DATA) {
+                owner.onAudio(streamId, length);
+                skipRemaining = length;
+                return;
+            }
+
+            payload = new byte[length];
+            payloadPosition = 0;
+        }
+
+        int toCopy = Math.min(payload.length - payloadPosition, input.remaining());
+        input.get(payload, payloadPosition, toCopy);
+        payloadPosition += toCopy;
+
+        if (payloadPosition == payload.length) {
+            Frame frame = new Frame(type, streamId, payload);
+            payload = null;
+            owner.onFrame(this, frame);
+        }
+    }
+
+    private int readHeader() throws ProtocolException {
+        header.flip();
+        byte code = header.get();
+        type = FrameType.of(code);
+        streamId = header.getInt();
+        int length = header.getInt();
+        header.clear();
+
+        if (type == null) {
+            throw new ProtocolException("Unknown frame type: " + code);
+        }
+        if (length < 0 || length > Frame.MAX_PAYLOAD) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+
+        return length;
+    }
+
+    public void close() {
+        key.cancel();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Unable to close load connection: " + e.getMessage());
+        }
+    }
+}
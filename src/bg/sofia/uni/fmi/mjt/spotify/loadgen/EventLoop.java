@@ -0,0 +1,84 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class EventLoop implements Runnable {
+    private static final long SELECT_TIMEOUT_MILLIS = 5;
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    private final Selector selector;
+    private final List<VirtualUser> users;
+    private final ByteBuffer readBuffer;
+    private volatile boolean running;
+
+    public EventLoop() throws IOException {
+        this.selector = Selector.open();
+        this.users = new ArrayList<>();
+        this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        this.running = true;
+    }
+
+    public void add(VirtualUser user) {
+        users.add(user);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                processKeys();
+
+                long now = System.nanoTime();
+                for (VirtualUser user : users) {
+                    user.tick(now, selector);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Load generator event loop failed: " + e.getMessage());
+        } finally {
+            users.forEach(VirtualUser::close);
+            close();
+        }
+    }
+
+    private void processKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    connection.read(readBuffer);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (IOException e) {
+                connection.getOwner().fail();
+            }
+        }
+    }
+
+    private void close() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.out.println("Unable to close load generator selector: " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -0,0 +1,93 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record LoadConfig(String host, int port, int clients, int eventLoops, Duration duration, Duration rampUp,
+                         Duration thinkTime, Duration reportInterval, Map<Action, Integer> mix,
+                         List<String> songs, long seed) {
+    private static final String PREFIX = "--";
+    private static final String EQUALS = "=";
+    private static final String COMMA = ",";
+    private static final String COLON = ":";
+
+    private static final String DEFAULT_HOST = "localhost";
+    private static final int DEFAULT_PORT = 15157;
+    private static final int DEFAULT_CLIENTS = 100;
+    private static final long DEFAULT_DURATION_SECONDS = 60;
+    private static final long DEFAULT_RAMP_UP_SECONDS = 10;
+    private static final long DEFAULT_THINK_MILLIS = 200;
+    private static final long DEFAULT_REPORT_SECONDS = 5;
+    private static final String DEFAULT_MIX = "register:2,login:8,search:35,top:20,play:25,stop:10";
+    private static final String DEFAULT_SONGS = "redbone";
+    private static final long DEFAULT_SEED = 1;
+
+    public static final String USAGE = "Usage: MainLoadGenerator [--host=localhost] [--port=15157] [--clients=100]"
+            + " [--loops=<cores>] [--duration=60] [--rampup=10] [--think=200] [--report=5]"
+            + " [--mix=" + DEFAULT_MIX + "] [--songs=redbone,...] [--seed=1]";
+
+    public static LoadConfig of(String... args) {
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith(PREFIX) || !arg.contains(EQUALS)) {
+                throw new IllegalArgumentException("Invalid option: " + arg);
+            }
+
+            int separator = arg.indexOf(EQUALS);
+            options.put(arg.substring(PREFIX.length(), separator), arg.substring(separator + 1));
+        }
+
+        LoadConfig config = new LoadConfig(
+                options.getOrDefault("host", DEFAULT_HOST),
+                (int) number(options, "port", DEFAULT_PORT),
+                (int) number(options, "clients", DEFAULT_CLIENTS),
+                (int) number(options, "loops", Runtime.getRuntime().availableProcessors()),
+                Duration.ofSeconds(number(options, "duration", DEFAULT_DURATION_SECONDS)),
+                Duration.ofSeconds(number(options, "rampup", DEFAULT_RAMP_UP_SECONDS)),
+                Duration.ofMillis(number(options, "think", DEFAULT_THINK_MILLIS)),
+                Duration.ofSeconds(number(options, "report", DEFAULT_REPORT_SECONDS)),
+                mix(options.getOrDefault("mix", DEFAULT_MIX)),
+                Arrays.asList(options.getOrDefault("songs", DEFAULT_SONGS).split(COMMA)),
+                number(options, "seed", DEFAULT_SEED));
+
+        if (config.clients() <= 0 || config.eventLoops() <= 0) {
+            throw new IllegalArgumentException("Clients and loops should be positive");
+        }
+
+        return config;
+    }
+
+    private static long number(Map<String, String> options, String name, long defaultValue) {
+        String value = options.get(name);
+
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + name + " should be a number: " + value);
+        }
+    }
+
+    private static Map<Action, Integer> mix(String value) {
+        Map<Action, Integer> mix = new EnumMap<>(Action.class);
+
+        for (String entry : value.split(COMMA)) {
+            String[] parts = entry.split(COLON);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+
+            int weight = Integer.parseInt(parts[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weights should not be negative: " + entry);
+            }
+            mix.put(Action.of(parts[0]), weight);
+        }
+
+        return mix;
+    }
+}
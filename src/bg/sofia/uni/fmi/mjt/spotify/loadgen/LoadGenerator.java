@@ -0,0 +1,75 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoadGenerator {
+    private static final String THREAD_NAME = "load-loop-";
+    private static final double NANOS_IN_SECOND = 1_000_000_000.0;
+    private static final long NANOS_IN_MILLI = 1_000_000;
+    private static final int RADIX = 36;
+
+    private final LoadConfig config;
+    private final LoadReport report;
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.report = new LoadReport();
+    }
+
+    public LoadReport run() throws IOException, InterruptedException {
+        List<EventLoop> loops = new ArrayList<>();
+        for (int i = 0; i < config.eventLoops(); i++) {
+            loops.add(new EventLoop());
+        }
+
+        String runTag = Long.toString(System.currentTimeMillis(), RADIX);
+        long start = System.nanoTime();
+        long rampUp = config.rampUp().toNanos();
+
+        for (int i = 0; i < config.clients(); i++) {
+            long startAt = start + rampUp * i / config.clients();
+            loops.get(i % loops.size()).add(new VirtualUser(i, runTag, startAt, config, report));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < loops.size(); i++) {
+            Thread thread = new Thread(loops.get(i), THREAD_NAME + i);
+            thread.start();
+            threads.add(thread);
+        }
+
+        awaitEnd(start);
+
+        loops.forEach(EventLoop::stop);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        report.print(System.nanoTime() - start);
+        return report;
+    }
+
+    private void awaitEnd(long start) throws InterruptedException {
+        long end = start + config.duration().toNanos();
+        long interval = config.reportInterval().toMillis();
+        long lastCompleted = 0;
+        long lastReport = start;
+
+        while (System.nanoTime() < end) {
+            long remaining = (end - System.nanoTime()) / NANOS_IN_MILLI;
+            Thread.sleep(Math.max(1, Math.min(interval, remaining)));
+
+            long now = System.nanoTime();
+            long completed = report.getCompleted();
+            System.out.printf("[%5.1fs] connected %d, %.1f ops/s, %d errors, %d active streams%n",
+                    (now - start) / NANOS_IN_SECOND, report.getConnected(),
+                    (completed - lastCompleted) / ((now - lastReport) / NANOS_IN_SECOND),
+                    report.getErrors(), report.getActiveStreams());
+
+            lastCompleted = completed;
+            lastReport = now;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadReport {
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+    private static final double NANOS_IN_SECOND = 1_000_000_000.0;
+    private static final double BYTES_IN_MEGABYTE = 1024.0 * 1024.0;
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+    private static final String ROW = "%-26s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n";
+    private static final String HEADER = "%-26s %10s %8s %10s %10s %10s %10s %10s%n";
+    private static final String TIME_TO_FIRST_AUDIO = "time-to-first-audio-byte";
+
+    private final Map<Action, Histogram> latencies;
+    private final Map<Action, LongAdder> errors;
+    private final Histogram timeToFirstAudio;
+    private final LongAdder audioBytes;
+    private final LongAdder streamsStarted;
+    private final LongAdder streamsEnded;
+    private final LongAdder connected;
+    private final LongAdder disconnects;
+    private final LongAdder connectFailures;
+
+    public LoadReport() {
+        this.latencies = new EnumMap<>(Action.class);
+        this.errors = new EnumMap<>(Action.class);
+
+        for (Action action : Action.values()) {
+            latencies.put(action, new Histogram());
+            errors.put(action, new LongAdder());
+        }
+
+        this.timeToFirstAudio = new Histogram();
+        this.audioBytes = new LongAdder();
+        this.streamsStarted = new LongAdder();
+        this.streamsEnded = new LongAdder();
+        this.connected = new LongAdder();
+        this.disconnects = new LongAdder();
+        this.connectFailures = new LongAdder();
+    }
+
+    public void recordLatency(Action action, long nanos) {
+        latencies.get(action).record(nanos);
+    }
+
+    public void recordError(Action action, long nanos) {
+        latencies.get(action).record(nanos);
+        errors.get(action).increment();
+    }
+
+    public void recordFirstAudio(long nanos) {
+        timeToFirstAudio.record(nanos);
+        streamsStarted.increment();
+    }
+
+    public void recordAudio(int bytes) {
+        audioBytes.add(bytes);
+    }
+
+    public void recordStreamEnd() {
+        streamsEnded.increment();
+    }
+
+    public void recordConnected() {
+        connected.increment();
+    }
+
+    public void recordDisconnect() {
+        disconnects.increment();
+    }
+
+    public void recordConnectFailure() {
+        connectFailures.increment();
+    }
+
+    public long getCompleted() {
+        long total = 0;
+        for (Histogram each : latencies.values()) {
+            total += each.getCount();
+        }
+        return total;
+    }
+
+    public long getErrors() {
+        long total = 0;
+        for (LongAdder each : errors.values()) {
+            total += each.sum();
+        }
+        return total;
+    }
+
+    public long getActiveStreams() {
+        return streamsStarted.sum() - streamsEnded.sum();
+    }
+
+    public long getConnected() {
+        return connected.sum() - disconnects.sum();
+    }
+
+    public void print(long elapsedNanos) {
+        double seconds = elapsedNanos / NANOS_IN_SECOND;
+
+        System.out.printf(HEADER, "command", "count", "errors", "ops/s", "mean(ms)", "p50(ms)", "p99(ms)", "p999(ms)");
+        for (Action action : Action.values()) {
+            printRow(action.getName(), latencies.get(action), errors.get(action).sum(), seconds);
+        }
+        printRow(TIME_TO_FIRST_AUDIO, timeToFirstAudio, 0, seconds);
+
+        System.out.printf("total: %d requests, %.1f ops/s, %d errors over %.1f s%n",
+                getCompleted(), getCompleted() / seconds, getErrors(), seconds);
+        System.out.printf("audio: %.1f MB received, %d streams started, %d ended%n",
+                audioBytes.sum() / BYTES_IN_MEGABYTE, streamsStarted.sum(), streamsEnded.sum());
+        System.out.printf("connections: %d opened, %d failed to connect, %d dropped%n",
+                connected.sum(), connectFailures.sum(), disconnects.sum());
+    }
+
+    private static void printRow(String name, Histogram histogram, long errorCount, double seconds) {
+        System.out.printf(ROW, name, histogram.getCount(), errorCount, histogram.getCount() / seconds,
+                histogram.getMean() / NANOS_IN_MILLI,
+                histogram.valueAtPercentile(P50) / NANOS_IN_MILLI,
+                histogram.valueAtPercentile(P99) / NANOS_IN_MILLI,
+                histogram.valueAtPercentile(P999) / NANOS_IN_MILLI);
+    }
+}
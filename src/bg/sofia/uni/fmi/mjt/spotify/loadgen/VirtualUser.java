@@ -0,0 +1,249 @@
+package bg.sofia.uni.fmi.mjt.spotify.loadgen;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Selector;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class VirtualUser {
+    private static final String SPACE = " ";
+    private static final String NO_USER = "-1";
+    private static final String PASSWORD = "LoadPa$$1";
+    private static final String EMAIL_DOMAIN = "@load.com";
+    private static final String TOP_COUNT = "10";
+    private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private enum State {
+        WAITING, IDLE, AWAITING_REPLY, DEAD
+    }
+
+    private final LoadConfig config;
+    private final LoadReport report;
+    private final SplittableRandom random;
+    private final Action[] actions;
+    private final int[] cumulativeWeights;
+    private final String email;
+    private final long startAt;
+
+    private State state;
+    private Connection commands;
+    private Connection play;
+    private boolean connected;
+    private String sessionToken;
+    private int nextRequestId;
+
+    private Action pendingAction;
+    private int pendingRequestId;
+    private long sentAt;
+    private long nextActionAt;
+
+    private long playSentAt;
+    private boolean awaitingFormat;
+    private boolean awaitingAudio;
+    private boolean streamOpen;
+    private int currentStream;
+
+    public VirtualUser(int index, String runTag, long startAt, LoadConfig config, LoadReport report) {
+        this.config = config;
+        this.report = report;
+        this.random = new SplittableRandom(config.seed() + index * SEED_MULTIPLIER);
+        this.email = "load-" + runTag + "-" + index + EMAIL_DOMAIN;
+        this.startAt = startAt;
+        this.state = State.WAITING;
+        this.sessionToken = NO_USER;
+
+        Map<Action, Integer> mix = config.mix();
+        this.actions = mix.keySet().toArray(new Action[0]);
+        this.cumulativeWeights = new int[actions.length];
+
+        int total = 0;
+        for (int i = 0; i < actions.length; i++) {
+            total += mix.get(actions[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public void tick(long now, Selector selector) {
+        try {
+            if (state == State.WAITING && now >= startAt) {
+                connect(selector);
+                send(Action.REGISTER, String.join(SPACE, NO_USER, Action.REGISTER.getName(), email, PASSWORD));
+            } else if (state == State.IDLE && now >= nextActionAt) {
+                perform(nextAction());
+            }
+        } catch (IOException e) {
+            if (!connected) {
+                report.recordConnectFailure();
+            }
+            fail();
+        }
+    }
+
+    private void connect(Selector selector) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(config.host(), config.port());
+
+        commands = Connection.open(this, address, selector);
+        play = Connection.open(this, address, selector);
+        connected = true;
+        report.recordConnected();
+    }
+
+    private Action nextAction() {
+        int total = cumulativeWeights[cumulativeWeights.length - 1];
+        int pick = random.nextInt(total);
+
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return actions[i];
+            }
+        }
+
+        return actions[actions.length - 1];
+    }
+
+    private void perform(Action action) throws IOException {
+        String song = config.songs().get(random.nextInt(config.songs().size()));
+
+        switch (action) {
+            case REGISTER -> send(action, String.join(SPACE, NO_USER, action.getName(),
+                    "extra-" + nextRequestId + "-" + email, PASSWORD));
+            case LOGIN -> send(action, String.join(SPACE, NO_USER, action.getName(), email, PASSWORD));
+            case SEARCH -> send(action, String.join(SPACE, sessionToken, action.getName(), song));
+            case TOP -> send(action, String.join(SPACE, sessionToken, action.getName(), TOP_COUNT));
+            case STOP -> send(action, currentStream == 0
+                    ? String.join(SPACE, sessionToken, action.getName())
+                    : String.join(SPACE, sessionToken, action.getName(), String.valueOf(currentStream)));
+            case PLAY -> startPlay(song);
+        }
+    }
+
+    private void send(Action action, String command) throws IOException {
+        pendingAction = action;
+        pendingRequestId = ++nextRequestId;
+        sentAt = System.nanoTime();
+        state = State.AWAITING_REPLY;
+
+        commands.send(pendingRequestId, command);
+    }
+
+    private void startPlay(String song) throws IOException {
+        playSentAt = System.nanoTime();
+        awaitingFormat = true;
+        scheduleNext(playSentAt);
+
+        play.send(++nextRequestId, String.join(SPACE, sessionToken, Action.PLAY.getName(), song));
+    }
+
+    public void onFrame(Connection connection, Frame frame) {
+        long now = System.nanoTime();
+
+        if (connection == commands) {
+            onReply(frame, now);
+        } else {
+            onStreamFrame(frame, now);
+        }
+    }
+
+    private void onReply(Frame frame, long now) {
+        if (state != State.AWAITING_REPLY || frame.streamId() != pendingRequestId) {
+            return;
+        }
+
+        if (frame.type() == FrameType.ERROR) {
+            report.recordError(pendingAction, now - sentAt);
+        } else {
+            report.recordLatency(pendingAction, now - sentAt);
+
+            if (pendingAction == Action.REGISTER && NO_USER.equals(sessionToken)) {
+                sessionToken = frame.text();
+            }
+        }
+
+        if (NO_USER.equals(sessionToken)) {
+            fail();
+            return;
+        }
+
+        state = State.IDLE;
+        scheduleNext(now);
+    }
+
+    private void onStreamFrame(Frame frame, long now) {
+        switch (frame.type()) {
+            case AUDIO_FORMAT -> {
+                if (awaitingFormat) {
+                    report.recordLatency(Action.PLAY, now - playSentAt);
+                    awaitingFormat = false;
+                }
+                endStream();
+                currentStream = frame.streamId();
+                awaitingAudio = true;
+            }
+            case AUDIO_END -> {
+                if (frame.streamId() == currentStream) {
+                    endStream();
+                }
+            }
+            case ERROR -> {
+                if (awaitingFormat) {
+                    report.recordError(Action.PLAY, now - playSentAt);
+                    awaitingFormat = false;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    public void onAudio(int streamId, int length) {
+        report.recordAudio(length);
+
+        if (awaitingAudio && streamId == currentStream) {
+            report.recordFirstAudio(System.nanoTime() - playSentAt);
+            awaitingAudio = false;
+            streamOpen = true;
+        }
+    }
+
+    private void endStream() {
+        if (streamOpen) {
+            report.recordStreamEnd();
+            streamOpen = false;
+        }
+        awaitingAudio = false;
+    }
+
+    private void scheduleNext(long now) {
+        double mean = config.thinkTime().toNanos();
+        nextActionAt = now + (long) (-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    public void fail() {
+        if (state == State.DEAD) {
+            return;
+        }
+
+        state = State.DEAD;
+        close();
+
+        if (connected) {
+            report.recordDisconnect();
+        }
+    }
+
+    public void close() {
+        endStream();
+
+        if (commands != null) {
+            commands.close();
+        }
+        if (play != null) {
+            play.close();
+        }
+    }
+}
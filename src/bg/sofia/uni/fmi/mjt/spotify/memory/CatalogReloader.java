@@ -0,0 +1,135 @@
+package bg.sofia.uni.fmi.mjt.spotify.memory;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.storage.MappedLines;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class CatalogReloader implements Closeable {
+    private static final String THREAD_NAME = "catalog-reloader";
+    private static final String RELOAD_ERROR = "Unable to reload the song catalog: ";
+    private static final String WAV = ".wav";
+    private static final String SPACE = " ";
+    private static final String NO_PLAYS = " 0";
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final Path songsFile;
+    private final Path songsDirectory;
+    private final Consumer<Collection<Song>> publisher;
+    private final WatchService watchService;
+    private final Thread watcher;
+
+    public CatalogReloader(Path songsFile, Path songsDirectory, Consumer<Collection<Song>> publisher)
+            throws IOException {
+        this.songsFile = songsFile.toAbsolutePath();
+        this.songsDirectory = songsDirectory.toAbsolutePath();
+        this.publisher = publisher;
+
+        Files.createDirectories(this.songsDirectory);
+        this.watchService = this.songsFile.getFileSystem().newWatchService();
+        register(this.songsFile.getParent());
+        register(this.songsDirectory);
+
+        this.watcher = new Thread(this::watch, THREAD_NAME);
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    private void register(Path directory) throws IOException {
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    public void reload() {
+        try {
+            publisher.accept(discover());
+        } catch (IOException | RuntimeException e) {
+            System.out.println(RELOAD_ERROR + e.getMessage());
+        }
+    }
+
+    public List<Song> discover() throws IOException {
+        Map<String, Song> found = new LinkedHashMap<>();
+
+        if (Files.exists(songsFile)) {
+            for (Song each : MappedLines.parse(songsFile, 0, Song::of)) {
+                found.putIfAbsent(each.getFilename(), each);
+            }
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(songsDirectory, "*" + WAV)) {
+            for (Path each : stream) {
+                String fileName = each.getFileName().toString();
+                String filename = fileName.substring(0, fileName.length() - WAV.length());
+
+                int separator = filename.indexOf(SPACE);
+                if (separator > 0 && separator == filename.lastIndexOf(SPACE) && !found.containsKey(filename)) {
+                    found.put(filename, Song.of(filename + NO_PLAYS));
+                }
+            }
+        }
+
+        return List.copyOf(found.values());
+    }
+
+    private void watch() {
+        reload();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean changed = drain(watchService.take());
+
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(next);
+                }
+
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        boolean changed = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+
+            Path path = directory.resolve((Path) event.context());
+            changed |= path.equals(songsFile)
+                    || path.getParent().equals(songsDirectory) && path.toString().endsWith(WAV);
+        }
+
+        key.reset();
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.interrupt();
+        watchService.close();
+    }
+}
@@ -1,111 +1,107 @@
 package bg.sofia.uni.fmi.mjt.spotify.memory;
 
+import bg.sofia.uni.fmi.mjt.spotify.playlist.Playlist;
+import bg.sofia.uni.fmi.mjt.spotify.playlist.PlaylistKey;
 import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.song.SongCatalog;
+import bg.sofia.uni.fmi.mjt.spotify.storage.PlaylistRecord;
+import bg.sofia.uni.fmi.mjt.spotify.storage.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.StorageState;
 import bg.sofia.uni.fmi.mjt.spotify.user.User;
+import bg.sofia.uni.fmi.mjt.spotify.user.UserTable;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MemoryStorage {
-    private static final int ZERO = 0;
-    private static final int ONE = 1;
-
-    private final Reader userReader;
-    private final Reader songReader;
-
-    private final Map<Integer, User> users;
-    private final Map<String, Integer> emails;
-    private final Map<String, Song> songs;
-    private final List<String> playlist;
-    private static int currId = 0;
-
-    public MemoryStorage(Reader userReader, Reader songReader) {
-        this.userReader = userReader;
-        this.songReader = songReader;
-
-        this.users = new HashMap<>();
-        this.emails = new HashMap<>();
-        this.songs = new HashMap<>();
-        this.playlist = new ArrayList<>();
-
-        setUpUsers();
-        setUpSongs();
-        setUpPlaylists();
-    }
+    private static final String NO_PLAYS = " 0";
 
-    private void setUpUsers() {
-        try (var bufferedReader = new BufferedReader(userReader)) {
-            List<User> userList = bufferedReader.lines()
-                    .skip(ONE)
-                    .filter(p -> !p.isBlank())
-                    .map(User::of)
-                    .toList();
-
-            if (userList.size() > ZERO) {
-                currId = userList.get(userList.size() - ONE).id();
-
-                for (User each : userList) {
-                    users.put(each.id(), each);
-                    emails.put(each.email(), each.id());
-                }
-            }
+    private final Storage storage;
+
+    private final UserTable users;
+    private final SongCatalog catalog;
+    private final Map<PlaylistKey, Playlist> playlists;
+    private int nextUserId;
+
+    public MemoryStorage(Storage storage) {
+        this.storage = storage;
+
+        this.users = new UserTable();
+        this.playlists = new ConcurrentHashMap<>();
+
+        StorageState state;
+        try {
+            state = storage.load();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        currId++;
-    }
 
-    private void setUpSongs() {
-        try (var bufferedReader = new BufferedReader(songReader)) {
-            List<Song> songsList = bufferedReader.lines()
-                    .filter(p -> !p.isBlank())
-                    .map(Song::of)
-                    .toList();
+        CompletableFuture<Void> usersLoaded = CompletableFuture.runAsync(() -> setUpUsers(state));
+        this.catalog = SongCatalog.of(state.getSongs());
+        setUpPlaylists(state);
+        usersLoaded.join();
+    }
 
-            for (Song each : songsList) {
-                songs.put(each.getName().toLowerCase(), each);
+    private void setUpUsers(StorageState state) {
+        for (User each : state.getUsers()) {
+            if (!users.add(each)) {
+                System.out.println("Replacing duplicate user " + each.id() + " " + each.email());
+                removeConflicts(each);
+                users.add(each);
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            nextUserId = Math.max(nextUserId, each.id() + 1);
         }
     }
 
-    private void setUpPlaylists() {
-        Path dir = Path.of("playlists");
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-            for (Path each : stream) {
-                playlist.add(each.getName(ONE).toString());
+    private void removeConflicts(User user) {
+        User sameId = users.get(user.id());
+        if (sameId != null) {
+            users.remove(sameId);
+        }
+
+        User sameEmail = users.find(user.email());
+        if (sameEmail != null) {
+            users.remove(sameEmail);
+        }
+    }
+
+    private void setUpPlaylists(StorageState state) {
+        Map<String, Song> songsByFilename = new HashMap<>();
+        for (Song each : catalog.getSongs().values()) {
+            songsByFilename.put(each.getFilename(), each);
+        }
+
+        for (PlaylistRecord each : state.getPlaylists()) {
+            Playlist playlist = new Playlist(each.userId(), each.name());
+
+            for (String songFilename : each.songFilenames()) {
+                playlist.add(songsByFilename.computeIfAbsent(songFilename, p -> Song.of(p + NO_PLAYS)));
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+
+            playlists.put(playlist.getKey(), playlist);
         }
     }
 
-    public List<String> getPlaylist() {
-        return playlist;
+    public Storage getStorage() {
+        return storage;
     }
 
-    public Map<String, Song> getSongs() {
-        return songs;
+    public Map<PlaylistKey, Playlist> getPlaylists() {
+        return playlists;
     }
 
-    public Map<String, Integer> getEmails() {
-        return emails;
+    public SongCatalog getCatalog() {
+        return catalog;
     }
 
-    public Map<Integer, User> getUsers() {
+    public UserTable getUsers() {
         return users;
     }
 
-    public static int getCurrId() {
-        return currId;
+    public int getNextUserId() {
+        return nextUserId;
     }
 }
@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.spotify.memory;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.storage.Storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class PlayCountFlusher implements Closeable {
+    private static final String THREAD_NAME = "play-count-flusher";
+    private static final String FLUSH_ERROR = "Unable to save play counts: ";
+
+    private final Storage storage;
+    private final Supplier<Collection<Song>> songs;
+    private final Set<Song> dirty;
+    private final Set<Song> removed;
+    private final ScheduledExecutorService scheduler;
+
+    public PlayCountFlusher(Storage storage, Supplier<Collection<Song>> songs, Duration flushInterval) {
+        this.storage = storage;
+        this.songs = songs;
+        this.dirty = ConcurrentHashMap.newKeySet();
+        this.removed = ConcurrentHashMap.newKeySet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushInBackground, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void markDirty(Song song) {
+        dirty.add(song);
+    }
+
+    public synchronized void flush() throws IOException {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Song> changed = new ArrayList<>(dirty);
+        dirty.removeAll(changed);
+        changed.removeIf(removed::contains);
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        try {
+            storage.savePlayCounts(changed, songs.get());
+        } catch (IOException e) {
+            dirty.addAll(changed);
+            throw e;
+        }
+    }
+
+    public synchronized void remove(Collection<Song> songs) throws IOException {
+        removed.addAll(songs);
+        dirty.removeAll(songs);
+        storage.removeSongs(songs);
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println(FLUSH_ERROR + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        flush();
+    }
+}
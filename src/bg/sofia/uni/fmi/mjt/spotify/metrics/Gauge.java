@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.spotify.metrics;
+
+@FunctionalInterface
+public interface Gauge {
+    long getValue();
+}
@@ -0,0 +1,147 @@
+package bg.sofia.uni.fmi.mjt.spotify.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double HUNDRED = 100.0;
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    private volatile Slice current;
+    private volatile Slice previous;
+
+    public Histogram() {
+        this(UNBOUNDED, System::nanoTime);
+    }
+
+    public Histogram(Duration window) {
+        this(window.toNanos(), System::nanoTime);
+    }
+
+    Histogram(long windowNanos, LongSupplier clock) {
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.windowNanos = windowNanos;
+        this.clock = clock;
+        this.current = new Slice(clock.getAsLong());
+        this.previous = new Slice(clock.getAsLong());
+    }
+
+    public void record(long value) {
+        long sanitized = Math.max(0, value);
+
+        Slice slice = rotate();
+        slice.counts.incrementAndGet(indexOf(sanitized));
+        slice.total.increment();
+        slice.max.accumulateAndGet(sanitized, Math::max);
+        count.increment();
+        sum.add(sanitized);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        Slice slice = rotate();
+        return Math.max(slice.max.get(), previous.max.get());
+    }
+
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    public long valueAtPercentile(double percentile) {
+        Slice recent = rotate();
+        Slice older = previous;
+
+        long total = recent.total.sum() + older.total.sum();
+        if (total == 0) {
+            return 0;
+        }
+
+        long max = Math.max(recent.max.get(), older.max.get());
+        long rank = Math.max(1, (long) Math.ceil(percentile / HUNDRED * total));
+        long seen = 0;
+
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += recent.counts.get(index) + older.counts.get(index);
+            if (seen >= rank) {
+                return Math.min(upperBound(index), max);
+            }
+        }
+
+        return max;
+    }
+
+    private Slice rotate() {
+        Slice slice = current;
+        long now = clock.getAsLong();
+        if (now - slice.start < windowNanos) {
+            return slice;
+        }
+
+        synchronized (this) {
+            slice = current;
+            long elapsed = now - slice.start;
+            if (elapsed >= windowNanos) {
+                previous = elapsed >= 2 * windowNanos ? new Slice(now) : slice;
+                slice = new Slice(now);
+                current = slice;
+            }
+            return slice;
+        }
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+        return lower + (1L << shift) - 1;
+    }
+
+    private static class Slice {
+        private final long start;
+        private final AtomicLongArray counts;
+        private final LongAdder total;
+        private final AtomicLong max;
+
+        private Slice(long start) {
+            this.start = start;
+            this.counts = new AtomicLongArray(BUCKETS);
+            this.total = new LongAdder();
+            this.max = new AtomicLong();
+        }
+    }
+}
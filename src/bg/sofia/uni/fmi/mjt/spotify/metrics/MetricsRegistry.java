@@ -0,0 +1,72 @@
+package bg.sofia.uni.fmi.mjt.spotify.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MetricsRegistry {
+    private static final String PREFIX = "spotify_";
+    private static final String COUNT = "_count";
+    private static final String SUM = "_sum";
+    private static final String MAX = "_max";
+    private static final String P50 = "_p50";
+    private static final String P99 = "_p99";
+    private static final String P999 = "_p999";
+    private static final String SPACE = " ";
+    private static final String NEW_LINE = "\n";
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+    private static final double FAR_TAIL = 99.9;
+    private static final Duration HISTOGRAM_WINDOW = Duration.ofMinutes(1);
+
+    private final Map<String, Counter> counters;
+    private final Map<String, Gauge> gauges;
+    private final Map<String, Histogram> histograms;
+
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(PREFIX + name, k -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(PREFIX + name, k -> new Histogram(HISTOGRAM_WINDOW));
+    }
+
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(PREFIX + name, gauge);
+    }
+
+    public SortedMap<String, Long> snapshot() {
+        SortedMap<String, Long> values = new TreeMap<>();
+
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getValue()));
+        histograms.forEach((name, histogram) -> {
+            values.put(name + COUNT, histogram.getCount());
+            values.put(name + SUM, histogram.getSum());
+            values.put(name + MAX, histogram.getMax());
+            values.put(name + P50, histogram.valueAtPercentile(MEDIAN));
+            values.put(name + P99, histogram.valueAtPercentile(TAIL));
+            values.put(name + P999, histogram.valueAtPercentile(FAR_TAIL));
+        });
+
+        return values;
+    }
+
+    public String render() {
+        StringBuilder text = new StringBuilder();
+
+        for (Map.Entry<String, Long> entry : snapshot().entrySet()) {
+            text.append(entry.getKey()).append(SPACE).append(entry.getValue()).append(NEW_LINE);
+        }
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package bg.sofia.uni.fmi.mjt.spotify.playlist;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class Playlist {
+    private static final String SPACE = " ";
+    private static final String TXT = ".txt";
+
+    private final PlaylistKey key;
+    private final Set<Song> songs;
+
+    public Playlist(int userId, String name) {
+        this.key = new PlaylistKey(userId, name);
+        this.songs = new LinkedHashSet<>();
+    }
+
+    public static String fileName(int userId, String name) {
+        return userId + SPACE + name + TXT;
+    }
+
+    public synchronized boolean add(Song song) {
+        return songs.add(song);
+    }
+
+    public synchronized boolean contains(Song song) {
+        return songs.contains(song);
+    }
+
+    public synchronized List<Song> getSongs() {
+        return new ArrayList<>(songs);
+    }
+
+    public PlaylistKey getKey() {
+        return key;
+    }
+
+    public int getUserId() {
+        return key.userId();
+    }
+
+    public String getName() {
+        return key.name();
+    }
+
+    public String getFileName() {
+        return fileName(key.userId(), key.name());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return songs.toString();
+    }
+}
@@ -0,0 +1,4 @@
+package bg.sofia.uni.fmi.mjt.spotify.playlist;
+
+public record PlaylistKey(int userId, String name) {
+}
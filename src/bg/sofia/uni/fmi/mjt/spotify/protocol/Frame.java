@@ -0,0 +1,37 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public record Frame(FrameType type, int streamId, byte[] payload) {
+    public static final int HEADER_SIZE = Byte.BYTES + Integer.BYTES + Integer.BYTES;
+    public static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+    public static final int MAX_COMMAND_PAYLOAD = 4 * 1024;
+
+    public static Frame of(FrameType type, int streamId, String payload) {
+        return new Frame(type, streamId, payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ByteBuffer header(FrameType type, int streamId, int length) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        putHeader(header, type, streamId, length);
+        return header.flip();
+    }
+
+    public static void putHeader(ByteBuffer buffer, FrameType type, int streamId, int length) {
+        buffer.put(type.getCode());
+        buffer.putInt(streamId);
+        buffer.putInt(length);
+    }
+
+    public String text() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    public ByteBuffer encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        putHeader(buffer, type, streamId, payload.length);
+        buffer.put(payload);
+        return buffer.flip();
+    }
+}
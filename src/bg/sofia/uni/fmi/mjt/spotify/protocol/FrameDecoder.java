@@ -0,0 +1,100 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+public class FrameDecoder {
+    private final ByteBuffer header;
+    private final int maxPayload;
+
+    private FrameType type;
+    private int streamId;
+    private byte[] payload;
+    private int payloadPosition;
+    private int streamedRemaining;
+    private boolean streaming;
+
+    public FrameDecoder() {
+        this(Frame.MAX_PAYLOAD);
+    }
+
+    public FrameDecoder(int maxPayload) {
+        this.header = ByteBuffer.allocate(Frame.HEADER_SIZE);
+        this.maxPayload = maxPayload;
+    }
+
+    public Frame decode(ByteBuffer input) throws ProtocolException {
+        return decode(input, null);
+    }
+
+    public Frame decode(ByteBuffer input, PayloadSink audioSink) throws ProtocolException {
+        while (true) {
+            if (streaming) {
+                int toForward = Math.min(streamedRemaining, input.remaining());
+                audioSink.accept(streamId, input.slice(input.position(), toForward));
+                input.position(input.position() + toForward);
+                streamedRemaining -= toForward;
+
+                if (streamedRemaining > 0) {
+                    return null;
+                }
+
+                streaming = false;
+                header.clear();
+            }
+
+            if (payload == null) {
+                while (header.hasRemaining() && input.hasRemaining()) {
+                    header.put(input.get());
+                }
+
+                if (header.hasRemaining()) {
+                    return null;
+                }
+
+                readHeader(audioSink);
+                if (streaming) {
+                    continue;
+                }
+            }
+
+            int toCopy = Math.min(payload.length - payloadPosition, input.remaining());
+            input.get(payload, payloadPosition, toCopy);
+            payloadPosition += toCopy;
+
+            if (payloadPosition < payload.length) {
+                return null;
+            }
+
+            Frame frame = new Frame(type, streamId, payload);
+            payload = null;
+            header.clear();
+
+            return frame;
+        }
+    }
+
+    private void readHeader(PayloadSink audioSink) throws ProtocolException {
+        header.flip();
+        byte code = header.get();
+        type = FrameType.of(code);
+        streamId = header.getInt();
+        int length = header.getInt();
+
+        if (type == null) {
+            throw new ProtocolException("Unknown frame type: " + code);
+        }
+        if (length < 0 || length > maxPayload) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+
+        if (type == FrameType.AUDIO_DATA && audioSink != null) {
+            streaming = true;
+            streamedRemaining = length;
+            return;
+        }
+
+        payload = new byte[length];
+        payloadPosition = 0;
+    }
+}
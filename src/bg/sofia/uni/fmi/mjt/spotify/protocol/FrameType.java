@@ -0,0 +1,33 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+public enum FrameType {
+    COMMAND((byte) 1),
+    RESPONSE((byte) 2),
+    ERROR((byte) 3),
+    AUDIO_FORMAT((byte) 4),
+    AUDIO_DATA((byte) 5),
+    AUDIO_END((byte) 6),
+    AUDIO_STATE((byte) 7);
+
+    private static final FrameType[] BY_CODE = new FrameType[Byte.MAX_VALUE + 1];
+
+    static {
+        for (FrameType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    FrameType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return this.code;
+    }
+
+    public static FrameType of(byte code) {
+        return code < 0 ? null : BY_CODE[code];
+    }
+}
@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+import java.nio.ByteBuffer;
+
+@FunctionalInterface
+public interface PayloadSink {
+    void accept(int streamId, ByteBuffer payload);
+}
@@ -0,0 +1,52 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+public enum Quality {
+    HIGH(1, false, false),
+    MEDIUM(2, false, false),
+    LOW(2, true, false),
+    MINIMAL(2, true, true);
+
+    private final int rateDivisor;
+    private final boolean mono;
+    private final boolean eightBit;
+
+    Quality(int rateDivisor, boolean mono, boolean eightBit) {
+        this.rateDivisor = rateDivisor;
+        this.mono = mono;
+        this.eightBit = eightBit;
+    }
+
+    public int getRateDivisor() {
+        return rateDivisor;
+    }
+
+    public boolean isMono() {
+        return mono;
+    }
+
+    public boolean isEightBit() {
+        return eightBit;
+    }
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+
+    public Quality lower() {
+        return ordinal() == values().length - 1 ? this : values()[ordinal() + 1];
+    }
+
+    public Quality higher() {
+        return ordinal() == 0 ? this : values()[ordinal() - 1];
+    }
+
+    public static Quality of(String name) {
+        for (Quality each : values()) {
+            if (each.getName().equalsIgnoreCase(name)) {
+                return each;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+public enum StreamState {
+    PLAYING,
+    SWITCHING,
+    PAUSED,
+    STOPPED
+}
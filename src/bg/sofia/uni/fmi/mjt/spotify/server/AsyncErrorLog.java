@@ -0,0 +1,279 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class AsyncErrorLog implements Closeable {
+    private static final int CAPACITY = 4096;
+    private static final int MAX_BATCH = 256;
+    private static final int MAX_TRACKED_TRACES = 1024;
+    private static final long MAX_FILE_SIZE = 10L * 1024 * 1024;
+    private static final int MAX_ROLLED_FILES = 5;
+    private static final long DUPLICATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+    private static final String WRITER_THREAD_NAME = "error-log-writer";
+    private static final String SUPPRESSED = "(%d identical errors suppressed since the previous report)";
+    private static final String WRITE_FAILED = "Unable to write the error log: ";
+    private static final String SPACE = " ";
+    private static final String DOT = ".";
+
+    private final Path file;
+    private final long maxFileSize;
+    private final long duplicateWindowNanos;
+    private final LongSupplier clock;
+    private final BlockingQueue<LogRecord> records;
+    private final Map<String, DuplicateWindow> windows;
+    private final Counter recordsWritten;
+    private final Counter recordsDropped;
+    private final Counter recordsSuppressed;
+    private final Thread writerThread;
+    private BufferedWriter writer;
+    private long fileSize;
+
+    private volatile boolean closed;
+
+    public AsyncErrorLog(Path file, MetricsRegistry metrics) {
+        this(file, metrics, MAX_FILE_SIZE, DUPLICATE_WINDOW_NANOS, System::nanoTime);
+    }
+
+    AsyncErrorLog(Path file, MetricsRegistry metrics, long maxFileSize, long duplicateWindowNanos,
+                  LongSupplier clock) {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.duplicateWindowNanos = duplicateWindowNanos;
+        this.clock = clock;
+        this.records = new ArrayBlockingQueue<>(CAPACITY);
+        this.windows = new ConcurrentHashMap<>();
+        this.recordsWritten = metrics.counter("error_log_records_written_total");
+        this.recordsDropped = metrics.counter("error_log_records_dropped_total");
+        this.recordsSuppressed = metrics.counter("error_log_records_suppressed_total");
+        metrics.gauge("error_log_queue_size", records::size);
+
+        this.writerThread = new Thread(this::writeLoop, WRITER_THREAD_NAME);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public void log(String context, Throwable error) {
+        if (closed) {
+            recordsDropped.increment();
+            return;
+        }
+
+        String signature = signature(error);
+        if (windows.size() >= MAX_TRACKED_TRACES && !windows.containsKey(signature)) {
+            enqueue(new LogRecord(Instant.now(), context, error, 0));
+            return;
+        }
+
+        long now = clock.getAsLong();
+        DuplicateWindow fresh = new DuplicateWindow(now, context);
+        DuplicateWindow current = windows.merge(signature, fresh, (previous, candidate) -> {
+            if (now - previous.start < duplicateWindowNanos) {
+                previous.suppressed.increment();
+                return previous;
+            }
+            candidate.carriedOver = previous.suppressed.sum();
+            return candidate;
+        });
+
+        if (current != fresh) {
+            recordsSuppressed.increment();
+            return;
+        }
+
+        enqueue(new LogRecord(Instant.now(), context, error, fresh.carriedOver));
+    }
+
+    private void enqueue(LogRecord record) {
+        if (!records.offer(record)) {
+            recordsDropped.increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String signature(Throwable error) {
+        return error.getClass().getName() + SPACE + Arrays.hashCode(error.getStackTrace());
+    }
+
+    private void writeLoop() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH);
+
+        while (!closed || !records.isEmpty()) {
+            try {
+                LogRecord first = records.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    records.drainTo(batch, MAX_BATCH - 1);
+                }
+
+                expireWindows(batch, false);
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                System.out.println(WRITE_FAILED + e.getMessage());
+                closeWriter();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        try {
+            expireWindows(batch, true);
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        } catch (IOException e) {
+            System.out.println(WRITE_FAILED + e.getMessage());
+        }
+        closeWriter();
+    }
+
+    private void expireWindows(List<LogRecord> batch, boolean all) {
+        long now = clock.getAsLong();
+
+        for (Map.Entry<String, DuplicateWindow> entry : windows.entrySet()) {
+            DuplicateWindow window = entry.getValue();
+
+            if ((all || now - window.start >= duplicateWindowNanos) && windows.remove(entry.getKey(), window)) {
+                long suppressed = window.suppressed.sum();
+                if (suppressed > 0) {
+                    batch.add(new LogRecord(Instant.now(), window.context, null, suppressed));
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<LogRecord> batch) throws IOException {
+        if (writer == null) {
+            openWriter();
+        }
+
+        StringBuilder text = new StringBuilder();
+        long length = 0;
+
+        for (LogRecord each : batch) {
+            int start = text.length();
+            each.appendTo(text);
+            long entryLength = text.substring(start).getBytes(StandardCharsets.UTF_8).length;
+
+            if (fileSize + length > 0 && fileSize + length + entryLength > maxFileSize) {
+                write(text.substring(0, start), length);
+                text.delete(0, start);
+                length = 0;
+                roll();
+            }
+            length += entryLength;
+        }
+
+        write(text.toString(), length);
+        recordsWritten.add(batch.size());
+    }
+
+    private void write(String text, long length) throws IOException {
+        writer.write(text);
+        writer.flush();
+        fileSize += length;
+    }
+
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileSize = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        closeWriter();
+
+        for (int i = MAX_ROLLED_FILES - 1; i >= 1; i--) {
+            Path source = rolledFile(i);
+            if (Files.exists(source)) {
+                Files.move(source, rolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+
+        openWriter();
+    }
+
+    private Path rolledFile(int index) {
+        return file.resolveSibling(file.getFileName() + DOT + index);
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println(WRITE_FAILED + e.getMessage());
+        }
+        writer = null;
+    }
+
+    private static class DuplicateWindow {
+        private final long start;
+        private final String context;
+        private final LongAdder suppressed;
+        private long carriedOver;
+
+        private DuplicateWindow(long start, String context) {
+            this.start = start;
+            this.context = context;
+            this.suppressed = new LongAdder();
+        }
+    }
+
+    private record LogRecord(Instant time, String context, Throwable error, long suppressedBefore) {
+        private void appendTo(StringBuilder text) {
+            text.append(time).append(SPACE).append(context).append(System.lineSeparator());
+            if (suppressedBefore > 0) {
+                text.append(String.format(SUPPRESSED, suppressedBefore)).append(System.lineSeparator());
+            }
+            if (error == null) {
+                return;
+            }
+            text.append(error.getMessage()).append(System.lineSeparator());
+
+            for (StackTraceElement ste : error.getStackTrace()) {
+                text.append(ste.toString()).append(System.lineSeparator());
+            }
+        }
+    }
+}
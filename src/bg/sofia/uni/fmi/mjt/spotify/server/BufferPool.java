@@ -0,0 +1,50 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+
+    private final Queue<ByteBuffer> freeBuffers;
+    private final AtomicInteger pooledCount;
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.freeBuffers = new ConcurrentLinkedQueue<>();
+        this.pooledCount = new AtomicInteger();
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        pooledCount.decrementAndGet();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooledCount.incrementAndGet() > maxPooled) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+
+        buffer.clear();
+        freeBuffers.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
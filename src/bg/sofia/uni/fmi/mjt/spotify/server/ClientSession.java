@@ -0,0 +1,250 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameDecoder;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ClientSession {
+    private static final byte[] EMPTY = new byte[0];
+    private static final long MAX_PENDING_BYTES = 4 * 1024 * 1024;
+
+    private final SelectionKey key;
+    private final SocketChannel channel;
+    private final BufferPool bufferPool;
+    private final ByteBuffer readBuffer;
+    private final FrameDecoder decoder;
+    private final SerialExecutor commandQueue;
+    private final Runnable onClose;
+
+    private final Queue<Outbound> pendingOutput;
+    private final AtomicLong pendingBytes;
+    private volatile UserSession userSession;
+    private volatile boolean closed;
+    private boolean released;
+
+    public ClientSession(SelectionKey key, BufferPool bufferPool, Executor workers, Runnable onClose) {
+        this.key = key;
+        this.channel = (SocketChannel) key.channel();
+        this.bufferPool = bufferPool;
+        this.readBuffer = bufferPool.acquire();
+        this.decoder = new FrameDecoder(Frame.MAX_COMMAND_PAYLOAD);
+        this.commandQueue = new SerialExecutor(workers);
+        this.onClose = onClose;
+        this.pendingOutput = new ConcurrentLinkedQueue<>();
+        this.pendingBytes = new AtomicLong();
+        this.closed = false;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    public FrameDecoder getDecoder() {
+        return decoder;
+    }
+
+    public SerialExecutor getCommandQueue() {
+        return commandQueue;
+    }
+
+    public UserSession getUserSession() {
+        return userSession;
+    }
+
+    synchronized UserSession bind(UserSession session) {
+        UserSession previous = userSession;
+        if (previous == session) {
+            return null;
+        }
+
+        session.attach();
+        if (released) {
+            return session;
+        }
+
+        userSession = session;
+        return previous;
+    }
+
+    synchronized UserSession unbind() {
+        UserSession previous = userSession;
+        userSession = null;
+        return previous;
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    public void writeFrame(FrameType type, int streamId, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        writeFrame(type, streamId, bytes, 0, bytes.length);
+    }
+
+    public void writeFrame(FrameType type, int streamId) {
+        writeFrame(type, streamId, EMPTY, 0, 0);
+    }
+
+    public void writeFrame(FrameType type, int streamId, byte[] payload, int offset, int length) {
+        synchronized (this) {
+            if (closed || overflows(Frame.HEADER_SIZE + length)) {
+                return;
+            }
+
+            enqueueCopy(Frame.header(type, streamId, length), ByteBuffer.wrap(payload, offset, length));
+            requestWrite();
+        }
+    }
+
+    public void writeFrame(FrameType type, int streamId, ByteBuffer payload) {
+        synchronized (this) {
+            if (closed || overflows(Frame.HEADER_SIZE + payload.remaining())) {
+                return;
+            }
+
+            enqueue(Frame.header(type, streamId, payload.remaining()));
+            enqueue(payload);
+            requestWrite();
+        }
+    }
+
+    private boolean overflows(int length) {
+        if (pendingBytes.get() + length <= MAX_PENDING_BYTES) {
+            return false;
+        }
+
+        closed = true;
+        discardOutput();
+        try {
+            channel.shutdownInput();
+        } catch (IOException e) {
+            System.out.println("Unable to drop a slow client: " + e.getMessage());
+        }
+        key.selector().wakeup();
+        return true;
+    }
+
+    private void enqueue(ByteBuffer buffer) {
+        pendingBytes.addAndGet(buffer.remaining());
+        pendingOutput.offer(new Outbound(buffer, false));
+    }
+
+    private void enqueueCopy(ByteBuffer... sources) {
+        ByteBuffer chunk = null;
+
+        for (ByteBuffer source : sources) {
+            while (source.hasRemaining()) {
+                if (chunk == null || !chunk.hasRemaining()) {
+                    offerPooled(chunk);
+                    chunk = bufferPool.acquire();
+                }
+
+                int toCopy = Math.min(chunk.remaining(), source.remaining());
+                chunk.put(source.slice(source.position(), toCopy));
+                source.position(source.position() + toCopy);
+            }
+        }
+
+        offerPooled(chunk);
+    }
+
+    private void offerPooled(ByteBuffer chunk) {
+        if (chunk == null) {
+            return;
+        }
+
+        chunk.flip();
+        pendingBytes.addAndGet(chunk.remaining());
+        pendingOutput.offer(new Outbound(chunk, true));
+    }
+
+    public synchronized boolean flush() throws IOException {
+        Outbound chunk;
+        while ((chunk = pendingOutput.peek()) != null) {
+            int written = channel.write(chunk.buffer());
+            pendingBytes.addAndGet(-written);
+
+            if (chunk.buffer().hasRemaining()) {
+                return false;
+            }
+
+            pendingOutput.poll();
+            release(chunk);
+        }
+
+        if (key.isValid()) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+
+        return true;
+    }
+
+    private synchronized void requestWrite() {
+        if (!key.isValid()) {
+            return;
+        }
+
+        int interestOps = key.interestOps();
+        if ((interestOps & SelectionKey.OP_WRITE) == 0) {
+            key.interestOps(interestOps | SelectionKey.OP_WRITE);
+            key.selector().wakeup();
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (released) {
+            return;
+        }
+
+        released = true;
+        try {
+            shutdown();
+        } finally {
+            bufferPool.release(readBuffer);
+        }
+    }
+
+    private void shutdown() throws IOException {
+        closed = true;
+        onClose.run();
+        discardOutput();
+
+        key.cancel();
+        channel.close();
+    }
+
+    private void discardOutput() {
+        Outbound chunk;
+        while ((chunk = pendingOutput.poll()) != null) {
+            release(chunk);
+        }
+        pendingBytes.set(0);
+    }
+
+    private void release(Outbound chunk) {
+        if (chunk.pooled()) {
+            bufferPool.release(chunk.buffer());
+        }
+    }
+
+    private record Outbound(ByteBuffer buffer, boolean pooled) {
+    }
+}
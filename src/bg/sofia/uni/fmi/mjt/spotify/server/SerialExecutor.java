@@ -0,0 +1,61 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SerialExecutor implements Executor {
+    private static final int MAX_BATCH = 16;
+
+    private final Executor delegate;
+    private final Queue<Task> tasks;
+    private final AtomicBoolean scheduled;
+
+    public SerialExecutor(Executor delegate) {
+        this.delegate = delegate;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        execute(task, delegate);
+    }
+
+    public void execute(Runnable task, Executor executor) {
+        tasks.offer(new Task(task, executor));
+        schedule();
+    }
+
+    private void schedule() {
+        Task next = tasks.peek();
+        if (next == null || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            next.executor().execute(() -> drain(next.executor()));
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            tasks.clear();
+            throw e;
+        }
+    }
+
+    private void drain(Executor current) {
+        try {
+            Task task;
+            for (int i = 0; i < MAX_BATCH && (task = tasks.peek()) != null && task.executor() == current; i++) {
+                tasks.poll().runnable().run();
+            }
+        } finally {
+            scheduled.set(false);
+            schedule();
+        }
+    }
+
+    private record Task(Runnable runnable, Executor executor) {
+    }
+}
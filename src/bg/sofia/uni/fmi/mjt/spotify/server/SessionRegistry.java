@@ -0,0 +1,128 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+
+import java.io.Closeable;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class SessionRegistry implements Closeable {
+    private static final String THREAD_NAME = "session-sweeper";
+    private static final int TOKEN_BYTES = 18;
+    private static final long MAX_SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<String, UserSession> sessions;
+    private final SecureRandom random;
+    private final Base64.Encoder encoder;
+    private final long idleNanos;
+    private final ScheduledExecutorService sweeper;
+    private final Counter sessionsCreated;
+    private final Counter sessionsExpired;
+    private final Counter sessionsRevoked;
+
+    public SessionRegistry(Duration idleTimeout, MetricsRegistry metrics) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.random = new SecureRandom();
+        this.encoder = Base64.getUrlEncoder().withoutPadding();
+        this.idleNanos = idleTimeout.toNanos();
+        this.sessionsCreated = metrics.counter("sessions_created_total");
+        this.sessionsExpired = metrics.counter("sessions_expired_total");
+        this.sessionsRevoked = metrics.counter("sessions_revoked_total");
+        metrics.gauge("sessions_active", sessions::size);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = Math.max(1, Math.min(MAX_SWEEP_INTERVAL_MILLIS, idleTimeout.toMillis()));
+        sweeper.scheduleWithFixedDelay(() -> expireIdle(System.nanoTime()), intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public UserSession create(int userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+
+        UserSession session = new UserSession(encoder.encodeToString(bytes), userId, System.nanoTime());
+        sessions.put(session.getToken(), session);
+        sessionsCreated.increment();
+
+        return session;
+    }
+
+    public UserSession resolve(String token) {
+        UserSession session = sessions.get(token);
+
+        if (session == null || touch(session)) {
+            return session;
+        }
+
+        return null;
+    }
+
+    public boolean touch(UserSession session) {
+        if (session.touch(System.nanoTime(), idleNanos)) {
+            return true;
+        }
+
+        if (sessions.remove(session.getToken(), session)) {
+            sessionsExpired.increment();
+        }
+        return false;
+    }
+
+    public void bind(ClientSession client, UserSession session) {
+        release(client.bind(session));
+    }
+
+    public void unbind(ClientSession client) {
+        release(client.unbind());
+    }
+
+    private void release(UserSession session) {
+        if (session != null && session.detach()) {
+            invalidate(session.getToken());
+        }
+    }
+
+    public void invalidate(String token) {
+        UserSession session = sessions.remove(token);
+
+        if (session != null) {
+            session.expire();
+            sessionsRevoked.increment();
+        }
+    }
+
+    public int expireIdle(long nowNanos) {
+        int expired = 0;
+
+        for (UserSession session : sessions.values()) {
+            if (session.isIdle(nowNanos, idleNanos) && sessions.remove(session.getToken(), session)) {
+                session.expire();
+                sessionsExpired.increment();
+                expired++;
+            }
+        }
+
+        return expired;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+}
@@ -1,47 +1,138 @@
 package bg.sofia.uni.fmi.mjt.spotify.server;
 
 import bg.sofia.uni.fmi.mjt.spotify.command.AvailableCommands;
+import bg.sofia.uni.fmi.mjt.spotify.command.Command;
 import bg.sofia.uni.fmi.mjt.spotify.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.command.CommandTokenizer;
+import bg.sofia.uni.fmi.mjt.spotify.exceptions.InvalidCommandException;
 import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyExceptions;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Histogram;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Frame;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+import bg.sofia.uni.fmi.mjt.spotify.streaming.PlaybackQueue;
+import bg.sofia.uni.fmi.mjt.spotify.streaming.StreamingEngine;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SpotifyServer implements Server {
-    private static final int BUFFER_SIZE = 1_000_000_012;
+    private static final int BUFFER_SIZE = 8_192;
+    private static final int MAX_POOLED_BUFFERS = 4_096;
+    private static final int WORKER_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final String WORKER_THREAD_NAME = "command-worker-";
+    private static final int AUTH_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_PENDING_AUTH = AUTH_THREADS * 32;
+    private static final String AUTH_THREAD_NAME = "auth-worker-";
+    private static final int SHUTDOWN_TIMEOUT_MILLIS = 5_000;
     private static final String ERROR = "ERROR:";
     private static final String SPACE = " ";
     private static final String SEMICOLON = ";";
-    private static final String PLAY = "PLAY;";
+    private static final String PLAY = "PLAY";
+    private static final String PLAYLIST = "PLAYLIST";
+    private static final int QUEUE_FLAGS = 2;
     private static final String STOP = "STOP";
+    private static final String PAUSE = "PAUSE";
+    private static final String RESUME = "RESUME";
+    private static final String SEEK = "SEEK";
+    private static final String QUALITY = "QUALITY";
     private static final String SERVER_ERROR = "An unexpected error occurred with the server!";
     private static final String CONNECTION_CLOSED = "Client has closed the connection";
     private static final String CONNECTION_ACCEPTED = "Connection accepted for client ";
+    private static final String MALFORMED_COMMAND = "Malformed command!";
+    private static final String REQUEST_FAILED = "Unable to process the request, please try again later!";
+    private static final String UNEXPECTED_FRAME = "Only command frames are accepted by the server";
+    private static final String SERVER_BUSY = "Server is shutting down, please try again later!";
+    private static final String AUTH_BUSY = "Too many login attempts at the moment, please try again later!";
+    private static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final int ANONYMOUS = 0;
+    private static final int TOKEN = 0;
+    private static final int COMMAND = 1;
 
     private final ServerErrorHandler serverErrorHandler;
     private final InetSocketAddress socketAddress;
-    private final ByteBuffer buffer;
+    private final BufferPool bufferPool;
     private final CommandExecutor commandExecutor;
+    private final StreamingEngine streamingEngine;
+    private final SessionRegistry sessions;
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor authWorkers;
+    private final AtomicInteger pendingAuth;
+    private final Counter authRejected;
+    private final Counter selectorIterations;
+    private final Histogram selectorIterationNanos;
+    private final Counter connectionsAccepted;
+    private final Counter connectionsClosed;
+    private final Counter socketWriteStalls;
     private Selector selector;
 
-    private final ConcurrentHashMap<Integer, Boolean> stopMap;
-    private boolean shouldRun;
+    private volatile boolean shouldRun;
+    private volatile long startupMillis;
 
     public SpotifyServer(CommandExecutor commandExecutor, InetSocketAddress socketAddress) {
+        this(commandExecutor, socketAddress, new MetricsRegistry());
+    }
+
+    public SpotifyServer(CommandExecutor commandExecutor, InetSocketAddress socketAddress, MetricsRegistry metrics) {
+        this(commandExecutor, socketAddress, metrics, DEFAULT_SESSION_IDLE_TIMEOUT);
+    }
+
+    public SpotifyServer(CommandExecutor commandExecutor, InetSocketAddress socketAddress, MetricsRegistry metrics,
+                         Duration sessionIdleTimeout) {
         this.socketAddress = socketAddress;
-        this.stopMap = new ConcurrentHashMap<>();
-        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.bufferPool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
         this.commandExecutor = commandExecutor;
-        this.serverErrorHandler = new ServerErrorHandler(this.buffer);
+        this.serverErrorHandler = new ServerErrorHandler(metrics);
+        this.streamingEngine = new StreamingEngine(serverErrorHandler, metrics, commandExecutor::recordPlay);
+        this.sessions = new SessionRegistry(sessionIdleTimeout, metrics);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, WORKER_THREAD_NAME + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        AtomicInteger authThreadCount = new AtomicInteger();
+        this.authWorkers = new ThreadPoolExecutor(AUTH_THREADS, AUTH_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, AUTH_THREAD_NAME + authThreadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pendingAuth = new AtomicInteger();
+
+        this.selectorIterations = metrics.counter("selector_iterations_total");
+        this.selectorIterationNanos = metrics.histogram("selector_iteration_nanos");
+        this.connectionsAccepted = metrics.counter("connections_accepted_total");
+        this.connectionsClosed = metrics.counter("connections_closed_total");
+        this.socketWriteStalls = metrics.counter("socket_write_stalls_total");
+        metrics.gauge("connections_open", () -> connectionsAccepted.get() - connectionsClosed.get());
+        metrics.gauge("worker_queue_size", () -> workers.getQueue().size());
+        metrics.gauge("workers_active", workers::getActiveCount);
+        metrics.gauge("auth_pending", pendingAuth::get);
+        this.authRejected = metrics.counter("auth_rejected_total");
+        metrics.gauge("startup_millis", () -> startupMillis);
         this.shouldRun = true;
     }
 
@@ -61,6 +152,8 @@ public class SpotifyServer implements Server {
             serverChannel.register(selector, SelectionKey.OP_ACCEPT);
 
             System.out.println("New Server is created!");
+            startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            System.out.println("Accepting connections on " + socketAddress + " after " + startupMillis + " ms");
 
             while (shouldRun) {
 
@@ -70,6 +163,7 @@ public class SpotifyServer implements Server {
                     continue;
                 }
 
+                long iterationStart = System.nanoTime();
                 Set<SelectionKey> selectedKeys = selector.selectedKeys();
                 Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
 
@@ -78,18 +172,24 @@ public class SpotifyServer implements Server {
 
                     if (key.isAcceptable()) {
                         acceptClient(key, selector);
-                    }
-                    if (key.isReadable()) {
-                        SocketChannel commandChannel = (SocketChannel) key.channel();
-                        processInput(commandChannel);
+                    } else {
+                        processClient(key);
                     }
                     keyIterator.remove();
                 }
+
+                selectorIterations.increment();
+                selectorIterationNanos.record(System.nanoTime() - iterationStart);
             }
             selector.close();
+            shutdownWorkers();
+            streamingEngine.shutdown();
+            sessions.close();
         } catch (IOException e) {
             System.out.println(String.join(SPACE, SERVER_ERROR, e.toString()));
             serverErrorHandler.handleSystemError(SERVER_ERROR, e);
+        } finally {
+            serverErrorHandler.close();
         }
     }
 
@@ -101,62 +201,233 @@ public class SpotifyServer implements Server {
         }
     }
 
-    private void processInput(SocketChannel commandChannel) throws IOException {
-        String clientInput = getClientInput(commandChannel);
+    private void shutdownWorkers() {
+        authWorkers.shutdown();
+        workers.shutdown();
+
+        try {
+            if (!authWorkers.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                authWorkers.shutdownNow();
+            }
+            if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            authWorkers.shutdownNow();
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processClient(SelectionKey key) {
+        ClientSession session = (ClientSession) key.attachment();
+
+        try {
+            if (key.isValid() && key.isWritable() && !session.flush()) {
+                socketWriteStalls.increment();
+            }
+            if (key.isValid() && key.isReadable()) {
+                processInput(session);
+            }
+        } catch (IOException e) {
+            System.out.println(CONNECTION_CLOSED);
+            closeSession(session);
+        }
+    }
+
+    private void closeSession(ClientSession session) {
+        try {
+            session.close();
+        } catch (IOException e) {
+            serverErrorHandler.handleSystemError(CONNECTION_CLOSED, e);
+        } finally {
+            sessions.unbind(session);
+        }
+    }
+
+    private void processInput(ClientSession session) throws IOException {
+        ByteBuffer buffer = session.getReadBuffer();
+        buffer.clear();
 
-        if (clientInput == null) {
+        if (session.getChannel().read(buffer) < 0) {
+            System.out.println(CONNECTION_CLOSED);
+            closeSession(session);
+            return;
+        }
+
+        buffer.flip();
+        Frame frame;
+        while ((frame = session.getDecoder().decode(buffer)) != null) {
+            if (frame.type() != FrameType.COMMAND) {
+                serverErrorHandler.writeClientError(session, frame.streamId(), ERROR, UNEXPECTED_FRAME);
+                continue;
+            }
+
+            String[] tokens = CommandTokenizer.tokenize(ByteBuffer.wrap(frame.payload()));
+            if (tokens.length != 0) {
+                dispatchCommand(session, frame.streamId(), tokens);
+            }
+        }
+    }
+
+    private void dispatchCommand(ClientSession session, int requestId, String[] tokens) {
+        if (tokens.length > COMMAND && isSessionCommand(tokens[COMMAND])) {
+            dispatchAuthCommand(session, requestId, tokens);
             return;
         }
 
         try {
-            executeInput(commandChannel, clientInput);
-        } catch (SpotifyExceptions e) {
-            serverErrorHandler.writeClientError(commandChannel, ERROR, e.getMessage());
-        } catch (UnsupportedAudioFileException | InterruptedException e) {
-            String clientId = "Client ID: " + clientInput.substring(0, clientInput.indexOf(SPACE));
-            serverErrorHandler.writeClientError(commandChannel, ERROR, e.getMessage(), clientId);
-            serverErrorHandler.handleSystemError(clientInput, e);
+            session.getCommandQueue().execute(() -> processCommand(session, requestId, tokens));
+        } catch (RejectedExecutionException e) {
+            serverErrorHandler.writeClientError(session, requestId, ERROR, SERVER_BUSY);
         }
     }
 
-    private void executeInput(SocketChannel commandChannel, String clientInput) throws IOException, SpotifyExceptions,
-            UnsupportedAudioFileException, InterruptedException {
+    private void dispatchAuthCommand(ClientSession session, int requestId, String[] tokens) {
+        if (pendingAuth.incrementAndGet() > MAX_PENDING_AUTH) {
+            pendingAuth.decrementAndGet();
+            authRejected.increment();
+            serverErrorHandler.writeClientError(session, requestId, ERROR, AUTH_BUSY);
+            return;
+        }
 
-        String output = commandExecutor.execute(clientInput);
-        boolean isAudioOperation = output.contains(SEMICOLON);
+        try {
+            session.getCommandQueue().execute(() -> {
+                try {
+                    processCommand(session, requestId, tokens);
+                } finally {
+                    pendingAuth.decrementAndGet();
+                }
+            }, authWorkers);
+        } catch (RejectedExecutionException e) {
+            pendingAuth.decrementAndGet();
+            serverErrorHandler.writeClientError(session, requestId, ERROR, SERVER_BUSY);
+        }
+    }
+
+    private void processCommand(ClientSession session, int requestId, String[] tokens) {
+        try {
+            executeInput(session, requestId, tokens);
+        } catch (SpotifyExceptions e) {
+            serverErrorHandler.writeClientError(session, requestId, ERROR, e.getMessage());
+        } catch (UnsupportedAudioFileException e) {
+            UserSession user = session.getUserSession();
+            String clientId = "Client ID: " + (user == null ? ANONYMOUS : user.getUserId());
+            serverErrorHandler.writeClientError(session, requestId, ERROR, e.getMessage(), clientId);
+            serverErrorHandler.handleSystemError(loggedInput(tokens), e);
+        } catch (IOException e) {
+            serverErrorHandler.writeClientError(session, requestId, ERROR, REQUEST_FAILED);
+            serverErrorHandler.handleSystemError(loggedInput(tokens), e);
+        } catch (RuntimeException e) {
+            serverErrorHandler.writeClientError(session, requestId, ERROR, MALFORMED_COMMAND);
+            serverErrorHandler.handleSystemError(loggedInput(tokens), e);
+        }
+    }
 
-        if (isAudioOperation) {
-            boolean shouldPlaySong = output.contains(PLAY);
-            boolean shouldStopSong = output.contains(STOP);
+    private void executeInput(ClientSession session, int requestId, String[] tokens)
+            throws IOException, SpotifyExceptions, UnsupportedAudioFileException {
 
-            int currId = Integer.parseInt(clientInput.substring(0, clientInput.indexOf(" ")));
+        if (tokens.length <= COMMAND) {
+            throw new InvalidCommandException(MALFORMED_COMMAND);
+        }
 
-            if (shouldPlaySong) {
-                stopMap.put(currId, false);
-                String fileName = output.split(SEMICOLON)[1];
+        UserSession user = resolveUser(session, tokens[TOKEN]);
+        int currId = user == null ? ANONYMOUS : user.getUserId();
 
-                ServerPlay serverPlay = new ServerPlay(serverErrorHandler, commandChannel, fileName, currId,
-                        clientInput, buffer, stopMap);
+        String output = commandExecutor.execute(Command.of(currId, tokens, COMMAND));
+        if (AvailableCommands.of(tokens[COMMAND]) == AvailableCommands.DISCONNECT) {
+            sessions.invalidate(user.getToken());
+            session.writeFrame(FrameType.RESPONSE, requestId, AvailableCommands.DISCONNECT.getName());
+            return;
+        }
 
-                Thread newThread = new Thread(serverPlay);
-                newThread.start();
-            }
-            if (shouldStopSong) {
-                stopMap.put(currId, true);
-                writeClient(commandChannel, AvailableCommands.STOP.getName());
+        boolean isAudioOperation = output.contains(SEMICOLON);
+
+        if (isSessionCommand(tokens[COMMAND])) {
+            session.writeFrame(FrameType.RESPONSE, requestId, startSession(session, Integer.parseInt(output)));
+        } else if (isAudioOperation) {
+            String[] operation = output.split(SEMICOLON, 2);
+
+            switch (operation[0]) {
+                case PLAY -> streamingEngine.play(session, currId, operation[1], loggedInput(tokens));
+                case PLAYLIST -> streamingEngine.play(session, currId, playbackQueue(operation[1]),
+                        loggedInput(tokens));
+                case STOP -> {
+                    streamingEngine.stop(session, currId, streamId(operation[1], 0));
+                    session.writeFrame(FrameType.RESPONSE, requestId, AvailableCommands.STOP.getName());
+                }
+                case PAUSE -> {
+                    streamingEngine.pause(session, currId, streamId(operation[1], 0));
+                    session.writeFrame(FrameType.RESPONSE, requestId, AvailableCommands.PAUSE.getName());
+                }
+                case RESUME -> {
+                    streamingEngine.resume(session, currId, streamId(operation[1], 0));
+                    session.writeFrame(FrameType.RESPONSE, requestId, AvailableCommands.RESUME.getName());
+                }
+                case SEEK -> {
+                    String[] arguments = operation[1].split(SEMICOLON);
+                    streamingEngine.seek(session, currId, streamId(operation[1], 1),
+                            Duration.ofMillis(Long.parseLong(arguments[0])));
+                    session.writeFrame(FrameType.RESPONSE, requestId, AvailableCommands.SEEK.getName());
+                }
+                case QUALITY -> {
+                    String[] arguments = operation[1].split(SEMICOLON);
+                    streamingEngine.setQuality(session, currId, streamId(operation[1], 1), Quality.of(arguments[0]));
+                    session.writeFrame(FrameType.RESPONSE, requestId, AvailableCommands.QUALITY.getName());
+                }
+                default -> session.writeFrame(FrameType.RESPONSE, requestId, output);
             }
         } else {
-            writeClient(commandChannel, output);
+            session.writeFrame(FrameType.RESPONSE, requestId, output);
         }
     }
 
-    private void writeClient(SocketChannel clientChannel, String output) throws IOException {
-        buffer.clear();
-        buffer.put(output.getBytes());
-        buffer.put(System.lineSeparator().getBytes());
+    private UserSession resolveUser(ClientSession session, String token) {
+        UserSession bound = session.getUserSession();
+        if (bound != null && bound.getToken().equals(token) && sessions.touch(bound)) {
+            return bound;
+        }
 
-        buffer.flip();
-        clientChannel.write(buffer);
+        UserSession user = sessions.resolve(token);
+        if (user != null) {
+            sessions.bind(session, user);
+        }
+        return user;
+    }
+
+    private boolean isSessionCommand(String command) {
+        AvailableCommands type = AvailableCommands.of(command);
+
+        return type == AvailableCommands.LOGIN || type == AvailableCommands.REGISTER;
+    }
+
+    private String startSession(ClientSession session, int userId) {
+        UserSession user = sessions.create(userId);
+        sessions.bind(session, user);
+        return user.getToken();
+    }
+
+    private String loggedInput(String[] tokens) {
+        if (tokens.length > COMMAND && isSessionCommand(tokens[COMMAND])) {
+            return tokens[COMMAND];
+        }
+
+        return String.join(SPACE, Arrays.copyOfRange(tokens, Math.min(COMMAND, tokens.length), tokens.length));
+    }
+
+    private static int streamId(String operation, int index) {
+        String[] arguments = operation.split(SEMICOLON);
+
+        return arguments.length > index && !arguments[index].isEmpty()
+                ? Integer.parseInt(arguments[index])
+                : StreamingEngine.CURRENT_STREAM;
+    }
+
+    private PlaybackQueue playbackQueue(String operation) {
+        String[] parts = operation.split(SEMICOLON);
+        List<String> fileNames = Arrays.asList(parts).subList(QUEUE_FLAGS, parts.length);
+
+        return new PlaybackQueue(fileNames, Boolean.parseBoolean(parts[0]), Boolean.parseBoolean(parts[1]));
     }
 
     private void  acceptClient(SelectionKey key, Selector selector) throws IOException {
@@ -164,21 +435,10 @@ public class SpotifyServer implements Server {
 
         SocketChannel clientAccepted = server.accept();
         clientAccepted.configureBlocking(false);
-        clientAccepted.register(selector, SelectionKey.OP_READ);
+        SelectionKey clientKey = clientAccepted.register(selector, SelectionKey.OP_READ);
+        clientKey.attach(new ClientSession(clientKey, bufferPool, workers, connectionsClosed::increment));
+        connectionsAccepted.increment();
 
         System.out.println(CONNECTION_ACCEPTED + clientAccepted.getRemoteAddress());
     }
-
-    private String getClientInput(SocketChannel clientChannel) throws IOException {
-        buffer.clear();
-
-        if (clientChannel.read(buffer) < 0) {
-            System.out.println(CONNECTION_CLOSED);
-            clientChannel.close();
-            return null;
-        }
-
-        buffer.flip();
-        return new String(buffer.array(), 0, buffer.remaining()).strip();
-    }
 }
\ No newline at end of file
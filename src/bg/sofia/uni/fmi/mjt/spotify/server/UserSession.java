@@ -0,0 +1,50 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+public class UserSession {
+    private final String token;
+    private final int userId;
+
+    private volatile long lastAccessNanos;
+    private volatile boolean expired;
+    private int connections;
+
+    public UserSession(String token, int userId, long nowNanos) {
+        this.token = token;
+        this.userId = userId;
+        this.lastAccessNanos = nowNanos;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    boolean touch(long nowNanos, long idleNanos) {
+        if (expired || nowNanos - lastAccessNanos > idleNanos) {
+            expired = true;
+            return false;
+        }
+
+        lastAccessNanos = nowNanos;
+        return true;
+    }
+
+    boolean isIdle(long nowNanos, long idleNanos) {
+        return expired || nowNanos - lastAccessNanos > idleNanos;
+    }
+
+    void expire() {
+        expired = true;
+    }
+
+    synchronized void attach() {
+        connections++;
+    }
+
+    synchronized boolean detach() {
+        return --connections == 0;
+    }
+}
@@ -1,5 +1,7 @@
 package bg.sofia.uni.fmi.mjt.spotify.song;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Song {
     private static final String SPACE = " ";
     private static final String LOWER_LINE = "_";
@@ -8,13 +10,13 @@ public class Song {
     private static final int COUNT = 2;
     private final String name;
     private final String author;
-    private int countPlays;
+    private final AtomicInteger countPlays;
     private final String filename;
 
     private Song(String name, String author, int count, String fileName) {
         this.name = name;
         this.author = author;
-        this.countPlays = count;
+        this.countPlays = new AtomicInteger(count);
         this.filename = fileName;
     }
     public static Song of(String line) {
@@ -28,8 +30,8 @@ public class Song {
         return new Song(name, author, count, filename);
     }
 
-    public void incrementCount() {
-        this.countPlays++;
+    public int incrementCount() {
+        return this.countPlays.incrementAndGet();
     }
     @Override
     public String toString() {
@@ -46,7 +48,7 @@ public class Song {
     }
 
     public int getCountPlays() {
-        return this.countPlays;
+        return this.countPlays.get();
     }
 
     public String getAuthor() {
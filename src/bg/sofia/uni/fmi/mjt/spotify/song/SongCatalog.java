@@ -0,0 +1,60 @@
+package bg.sofia.uni.fmi.mjt.spotify.song;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class SongCatalog {
+    private final Map<String, Song> songs;
+    private final Map<String, Song> filenames;
+    private final SongIndex index;
+    private final SongRanking ranking;
+
+    private SongCatalog(Map<String, Song> songs, Map<String, Song> filenames, SongIndex index, SongRanking ranking) {
+        this.songs = songs;
+        this.filenames = filenames;
+        this.index = index;
+        this.ranking = ranking;
+    }
+
+    public static SongCatalog of(Collection<Song> catalog) {
+        return of(catalog, new SongRanking());
+    }
+
+    public static SongCatalog of(Collection<Song> catalog, SongRanking ranking) {
+        Map<String, Song> songs = new LinkedHashMap<>();
+        Map<String, Song> filenames = new HashMap<>();
+        for (Song each : catalog) {
+            songs.put(each.getName().toLowerCase(), each);
+            filenames.put(each.getFilename(), each);
+        }
+
+        SongIndex index = new SongIndex();
+
+        CompletableFuture<Void> ranked = CompletableFuture.runAsync(
+                () -> songs.values().parallelStream().forEach(ranking::add));
+        index.addAll(songs.values());
+        ranked.join();
+
+        return new SongCatalog(Collections.unmodifiableMap(songs), filenames, index, ranking);
+    }
+
+    public Map<String, Song> getSongs() {
+        return songs;
+    }
+
+    public Song findByFilename(String filename) {
+        return filenames.get(filename);
+    }
+
+    public SongIndex getIndex() {
+        return index;
+    }
+
+    public SongRanking getRanking() {
+        return ranking;
+    }
+}
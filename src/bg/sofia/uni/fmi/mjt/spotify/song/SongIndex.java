@@ -0,0 +1,173 @@
+package bg.sofia.uni.fmi.mjt.spotify.song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SongIndex {
+    private static final String SPACE = " ";
+    private static final int INITIAL_POSTINGS = 4;
+
+    private final List<Song> songs;
+    private final Map<String, PostingList> postings;
+    private final ReadWriteLock lock;
+
+    public SongIndex() {
+        this.songs = new ArrayList<>();
+        this.postings = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    public void add(Song song) {
+        Set<String> songTokens = tokens(song);
+
+        lock.writeLock().lock();
+        try {
+            index(song, songTokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<Song> catalog) {
+        List<Song> batch = List.copyOf(catalog);
+        List<Set<String>> batchTokens = batch.parallelStream()
+                .map(SongIndex::tokens)
+                .toList();
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                index(batch.get(i), batchTokens.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Song song, Set<String> songTokens) {
+        int songId = songs.size();
+        songs.add(song);
+
+        for (String token : songTokens) {
+            postings.computeIfAbsent(token, k -> new PostingList()).add(songId);
+        }
+    }
+
+    public List<Song> search(String... words) {
+        Set<String> queryTokens = new HashSet<>();
+        for (String word : words) {
+            queryTokens.addAll(tokens(word));
+        }
+
+        lock.readLock().lock();
+        try {
+            return search(queryTokens);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Song> search(Set<String> queryTokens) {
+
+        PostingList[] lists = new PostingList[queryTokens.size()];
+        int i = 0;
+        for (String token : queryTokens) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                return List.of();
+            }
+            lists[i++] = list;
+        }
+
+        if (lists.length == 0) {
+            return List.of();
+        }
+
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+
+        int[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int resultSize = result.length;
+        for (int list = 1; list < lists.length && resultSize > 0; list++) {
+            resultSize = intersect(result, resultSize, lists[list]);
+        }
+
+        List<Song> found = new ArrayList<>(resultSize);
+        for (int idx = 0; idx < resultSize; idx++) {
+            found.add(songs.get(result[idx]));
+        }
+
+        return found;
+    }
+
+    private static int intersect(int[] result, int resultSize, PostingList other) {
+        int kept = 0;
+        int otherIdx = 0;
+
+        for (int idx = 0; idx < resultSize && otherIdx < other.size; idx++) {
+            int songId = result[idx];
+            otherIdx = other.seek(songId, otherIdx);
+
+            if (otherIdx < other.size && other.ids[otherIdx] == songId) {
+                result[kept++] = songId;
+            }
+        }
+
+        return kept;
+    }
+
+    private static Set<String> tokens(Song song) {
+        return tokens(song.getName() + SPACE + song.getAuthor());
+    }
+
+    private static Set<String> tokens(String text) {
+        Set<String> tokens = new HashSet<>();
+
+        for (String token : text.toLowerCase().split(SPACE)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens;
+    }
+
+    private static class PostingList {
+        private int[] ids = new int[INITIAL_POSTINGS];
+        private int size;
+
+        private void add(int songId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = songId;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int seek(int songId, int from) {
+            int step = 1;
+            int low = from;
+            int high = from;
+
+            while (high < size && ids[high] < songId) {
+                low = high + 1;
+                high += step;
+                step *= 2;
+            }
+
+            int idx = Arrays.binarySearch(ids, low, Math.min(high + 1, size), songId);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+    }
+}
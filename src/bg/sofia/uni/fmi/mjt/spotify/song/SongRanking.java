@@ -0,0 +1,76 @@
+package bg.sofia.uni.fmi.mjt.spotify.song;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+public class SongRanking {
+    private static final int STRIPES = 64;
+
+    private static final Comparator<Entry> BY_PLAYS = Comparator.comparingInt(Entry::plays).reversed()
+            .thenComparing(entry -> entry.song().getFilename());
+
+    private final NavigableSet<Entry> ranking;
+    private final Map<Song, Entry> entries;
+    private final Object[] locks;
+
+    public SongRanking() {
+        this.ranking = new ConcurrentSkipListSet<>(BY_PLAYS);
+        this.entries = new ConcurrentHashMap<>();
+        this.locks = new Object[STRIPES];
+
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public void add(Song song) {
+        synchronized (lockFor(song)) {
+            rank(song, song.getCountPlays());
+        }
+    }
+
+    public void remove(Song song) {
+        synchronized (lockFor(song)) {
+            Entry entry = entries.remove(song);
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+        }
+    }
+
+    public void recordPlay(Song song) {
+        synchronized (lockFor(song)) {
+            int plays = song.incrementCount();
+            if (entries.containsKey(song)) {
+                rank(song, plays);
+            }
+        }
+    }
+
+    private void rank(Song song, int plays) {
+        Entry entry = new Entry(plays, song);
+        Entry previous = entries.put(song, entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+    }
+
+    public List<Song> top(int count) {
+        return ranking.stream()
+                .limit(count)
+                .map(Entry::song)
+                .toList();
+    }
+
+    private Object lockFor(Song song) {
+        return locks[Math.floorMod(song.getFilename().hashCode(), STRIPES)];
+    }
+
+    private record Entry(int plays, Song song) {
+    }
+}
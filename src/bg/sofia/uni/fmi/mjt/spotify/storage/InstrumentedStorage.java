@@ -0,0 +1,120 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Histogram;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.io.IOException;
+import java.util.Collection;
+
+public class InstrumentedStorage implements Storage {
+    private final Storage delegate;
+    private final Histogram loadNanos;
+    private final Histogram saveUserNanos;
+    private final Histogram flushNanos;
+    private final Histogram savePlaylistNanos;
+    private final Counter flushedSongs;
+    private final Counter failures;
+
+    public InstrumentedStorage(Storage delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.loadNanos = metrics.histogram("storage_load_nanos");
+        this.saveUserNanos = metrics.histogram("storage_save_user_nanos");
+        this.flushNanos = metrics.histogram("storage_flush_nanos");
+        this.savePlaylistNanos = metrics.histogram("storage_save_playlist_nanos");
+        this.flushedSongs = metrics.counter("storage_flushed_songs_total");
+        this.failures = metrics.counter("storage_failures_total");
+    }
+
+    @Override
+    public StorageState load() throws IOException {
+        long start = System.nanoTime();
+
+        try {
+            return delegate.load();
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            loadNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void saveUser(User user) throws IOException {
+        long start = System.nanoTime();
+
+        try {
+            delegate.saveUser(user);
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            saveUserNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void savePlayCounts(Collection<Song> changed, Collection<Song> catalog) throws IOException {
+        long start = System.nanoTime();
+
+        try {
+            delegate.savePlayCounts(changed, catalog);
+            flushedSongs.add(changed.size());
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            flushNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void removeSongs(Collection<Song> removed) throws IOException {
+        long start = System.nanoTime();
+
+        try {
+            delegate.removeSongs(removed);
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            flushNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void savePlaylist(int userId, String name) throws IOException {
+        long start = System.nanoTime();
+
+        try {
+            delegate.savePlaylist(userId, name);
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            savePlaylistNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void saveSongToPlaylist(int userId, String name, Song song) throws IOException {
+        long start = System.nanoTime();
+
+        try {
+            delegate.saveSongToPlaylist(userId, name, song);
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            savePlaylistNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
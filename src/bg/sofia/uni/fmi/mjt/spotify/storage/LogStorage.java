@@ -0,0 +1,607 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class LogStorage implements Storage {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String NUMBER_FORMAT = "%010d";
+    private static final String COMMITTER_THREAD = "log-storage-committer";
+    private static final String COMPACTOR_THREAD = "log-storage-compactor";
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+    private static final int MAX_BATCH = 1024;
+    private static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int COMPACTION_SEGMENTS = 4;
+    private static final long COMPACTION_INTERVAL_MILLIS = 10 * 60 * 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    private static final PendingRecord POISON = new PendingRecord(new byte[0], null);
+
+    private final Path directory;
+    private final Storage bootstrap;
+    private final long segmentSize;
+    private final BlockingQueue<PendingRecord> pending;
+    private final Object compactionLock;
+    private final Object appendLock;
+
+    private ScheduledExecutorService compactor;
+    private Thread committer;
+    private FileChannel activeChannel;
+    private volatile long activeSegment;
+    private volatile long snapshotNumber;
+    private volatile boolean closed;
+
+    public LogStorage(Path directory, Storage bootstrap) {
+        this(directory, bootstrap, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public LogStorage(Path directory, Storage bootstrap, long segmentSize) {
+        this.directory = directory;
+        this.bootstrap = bootstrap;
+        this.segmentSize = segmentSize;
+        this.pending = new LinkedBlockingQueue<>();
+        this.compactionLock = new Object();
+        this.appendLock = new Object();
+    }
+
+    @Override
+    public StorageState load() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Long> snapshots = listNumbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        List<Long> segments = listNumbers(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+
+        StorageState state = null;
+        snapshotNumber = 0;
+
+        for (int i = snapshots.size() - 1; i >= 0 && state == null; i--) {
+            try {
+                state = readSnapshot(snapshots.get(i));
+                snapshotNumber = snapshots.get(i);
+            } catch (CorruptRecordException e) {
+                System.out.println("Skipping corrupt snapshot " + snapshots.get(i) + ": " + e.getMessage());
+            }
+        }
+
+        if (state == null && !snapshots.isEmpty()) {
+            throw new CorruptRecordException("No valid snapshot left in " + directory);
+        } else if (state == null && !segments.isEmpty()) {
+            throw new CorruptRecordException("Log segments in " + directory + " have no snapshot to replay onto");
+        } else if (state == null) {
+            state = bootstrap != null ? bootstrap.load() : new StorageState();
+            snapshotNumber = 1;
+            writeSnapshot(state, snapshotNumber);
+        }
+
+        long lastSegment = snapshotNumber - 1;
+        for (int i = 0; i < segments.size(); i++) {
+            long segment = segments.get(i);
+
+            if (segment >= snapshotNumber) {
+                boolean isLast = i == segments.size() - 1;
+                replaySegment(segment, state, isLast);
+                lastSegment = segment;
+            }
+        }
+
+        deleteObsolete(previousSnapshot(snapshotNumber));
+        openSegment(Math.max(snapshotNumber, lastSegment + 1));
+        startBackgroundThreads();
+
+        return state;
+    }
+
+    @Override
+    public void saveUser(User user) throws IOException {
+        append(List.of(userRecord(user)));
+    }
+
+    @Override
+    public void savePlayCounts(Collection<Song> changed, Collection<Song> catalog) throws IOException {
+        List<byte[]> records = new ArrayList<>(changed.size());
+
+        for (Song song : changed) {
+            records.add(songRecord(song.getFilename(), song.getCountPlays()));
+        }
+
+        append(records);
+    }
+
+    @Override
+    public void removeSongs(Collection<Song> removed) throws IOException {
+        List<byte[]> records = new ArrayList<>(removed.size());
+
+        for (Song song : removed) {
+            records.add(songRemovedRecord(song.getFilename()));
+        }
+
+        append(records);
+    }
+
+    @Override
+    public void savePlaylist(int userId, String name) throws IOException {
+        append(List.of(playlistRecord(userId, name)));
+    }
+
+    @Override
+    public void saveSongToPlaylist(int userId, String name, Song song) throws IOException {
+        append(List.of(playlistSongRecord(userId, name, song.getFilename())));
+    }
+
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            long upTo = activeSegment;
+            long from = snapshotNumber;
+
+            List<Long> closedSegments = listNumbers(SEGMENT_PREFIX, SEGMENT_SUFFIX).stream()
+                    .filter(segment -> segment >= from && segment < upTo)
+                    .toList();
+
+            if (closedSegments.isEmpty()) {
+                return;
+            }
+
+            StorageState state = Files.exists(snapshotPath(from)) ? readSnapshot(from) : new StorageState();
+            for (long segment : closedSegments) {
+                replaySegment(segment, state, false);
+            }
+
+            writeSnapshot(state, upTo);
+            snapshotNumber = upTo;
+            deleteObsolete(from);
+        }
+    }
+
+    private long previousSnapshot(long snapshot) throws IOException {
+        return listNumbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).stream()
+                .filter(number -> number < snapshot)
+                .reduce((first, second) -> second)
+                .orElse(snapshot);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        if (compactor != null) {
+            compactor.shutdown();
+            awaitTermination();
+        }
+
+        if (committer != null) {
+            pending.add(POISON);
+            try {
+                committer.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing the storage");
+            } finally {
+                failPending();
+            }
+        }
+
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+    }
+
+    private void failPending() {
+        IOException closing = new IOException("Storage was closed before the record was committed");
+
+        PendingRecord record;
+        while ((record = pending.poll()) != null) {
+            if (record != POISON) {
+                record.committed().completeExceptionally(closing);
+            }
+        }
+    }
+
+    private void awaitTermination() throws InterruptedIOException {
+        try {
+            compactor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the storage");
+        }
+    }
+
+    private void append(List<byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[records.size()];
+        synchronized (appendLock) {
+            if (closed || committer == null) {
+                throw new IOException("Storage is not open");
+            }
+
+            for (int i = 0; i < records.size(); i++) {
+                PendingRecord record = new PendingRecord(records.get(i), new CompletableFuture<>());
+                futures[i] = record.committed();
+                pending.add(record);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to commit records", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for commit");
+        }
+    }
+
+    private void startBackgroundThreads() {
+        committer = new Thread(this::commitLoop, COMMITTER_THREAD);
+        committer.setDaemon(true);
+        committer.start();
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, COMPACTOR_THREAD);
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactInBackground, COMPACTION_INTERVAL_MILLIS,
+                COMPACTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void commitLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        boolean running = true;
+
+        while (running) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending.drainTo(batch, MAX_BATCH - 1);
+            running = !batch.remove(POISON);
+
+            try {
+                writeBatch(batch);
+                batch.forEach(record -> record.committed().complete(null));
+            } catch (IOException e) {
+                batch.forEach(record -> record.committed().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingRecord> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i).data());
+        }
+
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            activeChannel.write(buffers);
+        }
+        activeChannel.force(false);
+
+        if (activeChannel.size() >= segmentSize) {
+            activeChannel.close();
+            openSegment(activeSegment + 1);
+
+            if (activeSegment - snapshotNumber >= COMPACTION_SEGMENTS) {
+                scheduleCompaction();
+            }
+        }
+    }
+
+    private void scheduleCompaction() {
+        try {
+            compactor.execute(this::compactInBackground);
+        } catch (RejectedExecutionException e) {
+            System.out.println("Storage is closing, compaction skipped");
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException e) {
+            System.out.println("Unable to compact storage: " + e.getMessage());
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSegment = number;
+    }
+
+    private void replaySegment(long segment, StorageState state, boolean truncateTail) throws IOException {
+        Path path = segmentPath(segment);
+        long validLength = 0;
+
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] body = readRecord(input);
+                if (body == null) {
+                    return;
+                }
+
+                apply(body, state);
+                validLength += RECORD_HEADER_SIZE + body.length;
+            }
+        } catch (CorruptRecordException e) {
+            if (!truncateTail) {
+                throw e;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+    }
+
+    private StorageState readSnapshot(long number) throws IOException {
+        StorageState state = new StorageState();
+
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath(number))))) {
+            byte[] body;
+            while ((body = readRecord(input)) != null) {
+                if (body[0] == RecordType.END.code) {
+                    return state;
+                }
+                apply(body, state);
+            }
+        }
+
+        throw new CorruptRecordException("Snapshot " + number + " is incomplete");
+    }
+
+    private void writeSnapshot(StorageState state, long number) throws IOException {
+        Path target = snapshotPath(number);
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            for (User user : state.getUsers()) {
+                writeFully(channel, userRecord(user));
+            }
+            for (var entry : state.getPlayCounts().entrySet()) {
+                writeFully(channel, songRecord(entry.getKey(), entry.getValue()));
+            }
+            for (PlaylistRecord playlist : state.getPlaylists()) {
+                writeFully(channel, playlistRecord(playlist.userId(), playlist.name()));
+
+                for (String song : playlist.songFilenames()) {
+                    writeFully(channel, playlistSongRecord(playlist.userId(), playlist.name(), song));
+                }
+            }
+            writeFully(channel, encode(RecordType.END, out -> { }));
+            channel.force(true);
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel channel, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void deleteObsolete(long firstLiveSegment) throws IOException {
+        for (long segment : listNumbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (segment < firstLiveSegment) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        for (long snapshot : listNumbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshot < firstLiveSegment) {
+                Files.deleteIfExists(snapshotPath(snapshot));
+            }
+        }
+    }
+
+    private List<Long> listNumbers(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path each : stream) {
+                String name = each.getFileName().toString();
+                numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+            }
+        }
+
+        numbers.sort(Long::compare);
+        return numbers;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + String.format(NUMBER_FORMAT, number) + SEGMENT_SUFFIX);
+    }
+
+    private Path snapshotPath(long number) {
+        return directory.resolve(SNAPSHOT_PREFIX + String.format(NUMBER_FORMAT, number) + SNAPSHOT_SUFFIX);
+    }
+
+    private static byte[] userRecord(User user) throws IOException {
+        return encode(RecordType.USER, out -> {
+            out.writeInt(user.id());
+            out.writeUTF(user.email());
+            out.writeUTF(user.password());
+        });
+    }
+
+    private static byte[] songRecord(String filename, int playCount) throws IOException {
+        return encode(RecordType.SONG, out -> {
+            out.writeUTF(filename);
+            out.writeInt(playCount);
+        });
+    }
+
+    private static byte[] songRemovedRecord(String filename) throws IOException {
+        return encode(RecordType.SONG_REMOVED, out -> out.writeUTF(filename));
+    }
+
+    private static byte[] playlistRecord(int userId, String name) throws IOException {
+        return encode(RecordType.PLAYLIST, out -> {
+            out.writeInt(userId);
+            out.writeUTF(name);
+        });
+    }
+
+    private static byte[] playlistSongRecord(int userId, String name, String songFilename) throws IOException {
+        return encode(RecordType.PLAYLIST_SONG, out -> {
+            out.writeInt(userId);
+            out.writeUTF(name);
+            out.writeUTF(songFilename);
+        });
+    }
+
+    private static byte[] encode(RecordType type, RecordWriter writer) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(body)) {
+            out.writeByte(type.code);
+            writer.write(out);
+        }
+
+        byte[] bodyBytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyBytes.length);
+        record.putInt(bodyBytes.length);
+        record.putInt((int) crc.getValue());
+        record.put(bodyBytes);
+
+        return record.array();
+    }
+
+    private static byte[] readRecord(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        try {
+            int checksum = input.readInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                throw new CorruptRecordException("Invalid record length: " + length);
+            }
+
+            byte[] body = new byte[length];
+            input.readFully(body);
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                throw new CorruptRecordException("Record checksum mismatch");
+            }
+
+            return body;
+        } catch (EOFException e) {
+            throw new CorruptRecordException("Truncated record");
+        }
+    }
+
+    private static void apply(byte[] body, StorageState state) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(body))) {
+            RecordType type = RecordType.of(in.readByte());
+
+            switch (type) {
+                case USER -> state.putUser(new User(in.readInt(), in.readUTF(), in.readUTF()));
+                case SONG -> state.putSong(in.readUTF(), in.readInt());
+                case SONG_REMOVED -> state.removeSong(in.readUTF());
+                case PLAYLIST -> state.putPlaylist(in.readInt(), in.readUTF());
+                case PLAYLIST_SONG -> state.addPlaylistSong(in.readInt(), in.readUTF(), in.readUTF());
+                default -> throw new CorruptRecordException("Unexpected record type: " + type);
+            }
+        }
+    }
+
+    private enum RecordType {
+        USER((byte) 1),
+        SONG((byte) 2),
+        PLAYLIST((byte) 3),
+        PLAYLIST_SONG((byte) 4),
+        END((byte) 5),
+        SONG_REMOVED((byte) 6);
+
+        private final byte code;
+
+        RecordType(byte code) {
+            this.code = code;
+        }
+
+        private static RecordType of(byte code) throws CorruptRecordException {
+            for (RecordType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new CorruptRecordException("Unknown record type: " + code);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record PendingRecord(byte[] data, CompletableFuture<Void> committed) {
+    }
+
+    private static class CorruptRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public final class MappedLines {
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 64 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+    private static final int INITIAL_LINE_SIZE = 256;
+    private static final int AVERAGE_LINE_SIZE = 64;
+
+    private MappedLines() {
+    }
+
+    public static <T> List<T> parse(Path file, int skipLines, Function<String, T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] boundaries = boundaries(channel);
+
+            try {
+                return IntStream.range(0, boundaries.length - 1)
+                        .parallel()
+                        .mapToObj(chunk -> parseChunk(channel, boundaries[chunk], boundaries[chunk + 1],
+                                chunk == 0 ? skipLines : 0, parser))
+                        .flatMap(List::stream)
+                        .toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static long[] boundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long perThread = size / ((long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, perThread));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        long position = 0;
+        while (position < size) {
+            position = position + chunkSize >= size ? size : nextLine(channel, position + chunkSize, size);
+            boundaries.add(position);
+        }
+
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLine(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == NEW_LINE) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return size;
+    }
+
+    private static <T> List<T> parseChunk(FileChannel channel, long start, long end, int skipLines,
+                                          Function<String, T> parser) {
+        MappedByteBuffer chunk;
+        try {
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<T> result = new ArrayList<>((int) ((end - start) / AVERAGE_LINE_SIZE));
+        byte[] line = new byte[INITIAL_LINE_SIZE];
+        int length = 0;
+        int skipped = 0;
+
+        while (chunk.hasRemaining() || length > 0) {
+            byte current = chunk.hasRemaining() ? chunk.get() : NEW_LINE;
+
+            if (current != NEW_LINE) {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = current;
+                continue;
+            }
+
+            if (length > 0 && line[length - 1] == CARRIAGE_RETURN) {
+                length--;
+            }
+
+            if (skipped < skipLines) {
+                skipped++;
+            } else {
+                String text = new String(line, 0, length, StandardCharsets.UTF_8);
+                if (!text.isBlank()) {
+                    result.add(parser.apply(text));
+                }
+            }
+            length = 0;
+        }
+
+        return result;
+    }
+}
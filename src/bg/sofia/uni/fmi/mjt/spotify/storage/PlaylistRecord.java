@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import java.util.List;
+
+public record PlaylistRecord(int userId, String name, List<String> songFilenames) {
+}
@@ -0,0 +1,22 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+public interface Storage extends Closeable {
+    StorageState load() throws IOException;
+
+    void saveUser(User user) throws IOException;
+
+    void savePlayCounts(Collection<Song> changed, Collection<Song> catalog) throws IOException;
+
+    void removeSongs(Collection<Song> removed) throws IOException;
+
+    void savePlaylist(int userId, String name) throws IOException;
+
+    void saveSongToPlaylist(int userId, String name, Song song) throws IOException;
+}
@@ -0,0 +1,77 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StorageState {
+    private static final String SPACE = " ";
+
+    private final Map<Integer, User> users;
+    private final Map<String, Integer> userIdsByEmail;
+    private final Map<String, Integer> playCounts;
+    private final Map<String, PlaylistRecord> playlists;
+
+    public StorageState() {
+        this.users = new LinkedHashMap<>();
+        this.userIdsByEmail = new LinkedHashMap<>();
+        this.playCounts = new LinkedHashMap<>();
+        this.playlists = new LinkedHashMap<>();
+    }
+
+    public void putUser(User user) {
+        Integer owner = userIdsByEmail.put(user.email(), user.id());
+        if (owner != null && owner != user.id()) {
+            users.remove(owner);
+        }
+
+        User previous = users.put(user.id(), user);
+        if (previous != null && !previous.email().equals(user.email())) {
+            userIdsByEmail.remove(previous.email(), user.id());
+        }
+    }
+
+    public void putSong(String filename, int playCount) {
+        playCounts.put(filename, playCount);
+    }
+
+    public void removeSong(String filename) {
+        playCounts.remove(filename);
+    }
+
+    public void putPlaylist(int userId, String name) {
+        playlists.putIfAbsent(key(userId, name), new PlaylistRecord(userId, name, new ArrayList<>()));
+    }
+
+    public void addPlaylistSong(int userId, String name, String songFilename) {
+        putPlaylist(userId, name);
+        playlists.get(key(userId, name)).songFilenames().add(songFilename);
+    }
+
+    private static String key(int userId, String name) {
+        return userId + SPACE + name;
+    }
+
+    public Collection<User> getUsers() {
+        return users.values();
+    }
+
+    public Map<String, Integer> getPlayCounts() {
+        return playCounts;
+    }
+
+    public List<Song> getSongs() {
+        return new ArrayList<>(playCounts.entrySet()).parallelStream()
+                .map(entry -> Song.of(entry.getKey() + SPACE + entry.getValue()))
+                .toList();
+    }
+
+    public Collection<PlaylistRecord> getPlaylists() {
+        return playlists.values();
+    }
+}
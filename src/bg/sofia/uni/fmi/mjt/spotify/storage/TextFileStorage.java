@@ -0,0 +1,262 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class TextFileStorage implements Storage {
+    private static final String SPACE = " ";
+    private static final String TXT = ".txt";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int ONE = 1;
+
+    private final Reader userReader;
+    private final Writer userWriter;
+    private final Reader songReader;
+    private final Path usersFile;
+    private final Path songsFile;
+    private final Path playlistsDirectory;
+    private final Set<Integer> storedUsers;
+    private Set<String> writtenSongs;
+
+    public TextFileStorage(Reader userReader, Writer userWriter, Reader songReader,
+                           Path songsFile, Path playlistsDirectory) {
+        this(userReader, userWriter, songReader, null, songsFile, playlistsDirectory);
+    }
+
+    public TextFileStorage(Path usersFile, Path songsFile, Path playlistsDirectory) {
+        this(null, null, null, usersFile, songsFile, playlistsDirectory);
+    }
+
+    private TextFileStorage(Reader userReader, Writer userWriter, Reader songReader,
+                            Path usersFile, Path songsFile, Path playlistsDirectory) {
+        this.userReader = userReader;
+        this.userWriter = userWriter;
+        this.songReader = songReader;
+        this.usersFile = usersFile;
+        this.songsFile = songsFile;
+        this.playlistsDirectory = playlistsDirectory;
+        this.storedUsers = new HashSet<>();
+        this.writtenSongs = new HashSet<>();
+    }
+
+    @Override
+    public StorageState load() throws IOException {
+        StorageState state = new StorageState();
+
+        List<User> users = usersFile != null
+                ? MappedLines.parse(usersFile, ONE, User::of)
+                : readLines(userReader, ONE, User::of);
+        users.forEach(state::putUser);
+        users.forEach(user -> storedUsers.add(user.id()));
+
+        List<Song> songs = usersFile != null
+                ? MappedLines.parse(songsFile, 0, Song::of)
+                : readLines(songReader, 0, Song::of);
+        songs.forEach(song -> state.putSong(song.getFilename(), song.getCountPlays()));
+        if (usersFile != null) {
+            songs.forEach(song -> writtenSongs.add(song.getFilename()));
+        }
+
+        loadPlaylists(state);
+        return state;
+    }
+
+    private static <T> List<T> readLines(Reader reader, int skipLines, Function<String, T> parser)
+            throws IOException {
+        try (var bufferedReader = new BufferedReader(reader)) {
+            return bufferedReader.lines()
+                    .skip(skipLines)
+                    .filter(p -> !p.isBlank())
+                    .map(parser)
+                    .toList();
+        }
+    }
+
+    private void loadPlaylists(StorageState state) throws IOException {
+        Files.createDirectories(playlistsDirectory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(playlistsDirectory, "*" + TXT)) {
+            stream.forEach(files::add);
+        }
+
+        List<PlaylistRecord> playlists;
+        try {
+            playlists = files.parallelStream()
+                    .map(TextFileStorage::readPlaylist)
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (PlaylistRecord each : playlists) {
+            state.putPlaylist(each.userId(), each.name());
+            for (String songFilename : each.songFilenames()) {
+                state.addPlaylistSong(each.userId(), each.name(), songFilename);
+            }
+        }
+    }
+
+    private static PlaylistRecord readPlaylist(Path file) {
+        String fileName = file.getFileName().toString();
+        String playlist = fileName.substring(0, fileName.length() - TXT.length());
+
+        int separator = playlist.indexOf(SPACE);
+        int userId = Integer.parseInt(playlist.substring(0, separator));
+        String name = playlist.substring(separator + ONE);
+
+        try (var lines = Files.lines(file)) {
+            return new PlaylistRecord(userId, name, lines
+                    .filter(p -> !p.isBlank())
+                    .map(line -> Song.of(line).getFilename())
+                    .toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void saveUser(User user) throws IOException {
+        String line = String.join(SPACE, String.valueOf(user.id()), user.email(), user.password());
+
+        if (usersFile == null) {
+            userWriter.write(line);
+            userWriter.write(System.lineSeparator());
+            userWriter.flush();
+        } else if (storedUsers.add(user.id())) {
+            try (var writer = Files.newBufferedWriter(usersFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        } else {
+            rewriteUser(user.id(), line);
+        }
+    }
+
+    private void rewriteUser(int userId, String line) throws IOException {
+        List<String> lines = Files.readAllLines(usersFile);
+        List<String> rewritten = new ArrayList<>(lines.size());
+        boolean replaced = false;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String current = lines.get(i);
+
+            if (i < ONE || current.isBlank() || idOf(current) != userId) {
+                rewritten.add(current);
+            } else if (!replaced) {
+                rewritten.add(line);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            rewritten.add(line);
+        }
+
+        Path tempFile = usersFile.resolveSibling(usersFile.getFileName() + TEMP_SUFFIX);
+        Files.write(tempFile, rewritten);
+        Files.move(tempFile, usersFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int idOf(String line) {
+        return Integer.parseInt(line.substring(0, line.indexOf(SPACE)));
+    }
+
+    @Override
+    public synchronized void savePlayCounts(Collection<Song> changed, Collection<Song> catalog) throws IOException {
+        Map<String, Song> songs = new HashMap<>();
+        for (Song song : catalog) {
+            songs.put(song.getFilename(), song);
+        }
+
+        Set<String> written = new HashSet<>();
+        Path tempFile = songsFile.resolveSibling(songsFile.getFileName() + TEMP_SUFFIX);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+            for (String line : Files.exists(songsFile) ? Files.readAllLines(songsFile) : List.<String>of()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                String filename = Song.of(line).getFilename();
+                if (!written.add(filename)) {
+                    continue;
+                }
+
+                Song current = songs.get(filename);
+                if (current == null) {
+                    writer.write(line + System.lineSeparator());
+                } else {
+                    writeSong(writer, current);
+                }
+            }
+
+            for (Song song : catalog) {
+                if (!written.contains(song.getFilename()) && !writtenSongs.contains(song.getFilename())) {
+                    writeSong(writer, song);
+                    written.add(song.getFilename());
+                }
+            }
+        }
+
+        Files.move(tempFile, songsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writtenSongs = written;
+    }
+
+    private static void writeSong(BufferedWriter writer, Song song) throws IOException {
+        writer.write(song.getFilename() + SPACE + song.getCountPlays() + System.lineSeparator());
+    }
+
+    @Override
+    public void removeSongs(Collection<Song> removed) {
+    }
+
+    @Override
+    public void savePlaylist(int userId, String name) throws IOException {
+        Path playlist = playlistFile(userId, name);
+
+        if (Files.notExists(playlist)) {
+            Files.createFile(playlist);
+        }
+    }
+
+    @Override
+    public void saveSongToPlaylist(int userId, String name, Song song) throws IOException {
+        try (var writer = Files.newBufferedWriter(playlistFile(userId, name),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(song.getFilename() + SPACE + song.getCountPlays());
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    private Path playlistFile(int userId, String name) {
+        return playlistsDirectory.resolve(userId + SPACE + name + TXT);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (userWriter != null) {
+            userWriter.flush();
+        }
+    }
+}
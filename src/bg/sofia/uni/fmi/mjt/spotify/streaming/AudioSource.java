@@ -0,0 +1,18 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface AudioSource extends Closeable {
+    AudioFormat getFormat();
+
+    int transferTo(ClientSession session, int streamId, int maxBytes, byte[] scratch) throws IOException;
+
+    ByteBuffer read(int maxBytes) throws IOException;
+
+    long seek(long byteOffset) throws IOException;
+}
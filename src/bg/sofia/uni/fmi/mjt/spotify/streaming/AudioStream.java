@@ -0,0 +1,295 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.StreamState;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.time.Duration;
+
+public class AudioStream {
+    private static final String SPACE = " ";
+    private static final long NANOS_IN_MILLI = 1_000_000L;
+    private static final long MILLIS_IN_SECOND = 1_000L;
+    private static final long LEAD_MILLIS = 1_000L;
+    private static final long HIGH_WATERMARK = 256 * 1024;
+    private static final int DEFAULT_BYTE_RATE = 176_400;
+
+    private final ClientSession session;
+    private final int streamId;
+    private final int userId;
+    private final String clientInput;
+    private final PlaybackQueue queue;
+    private String fileName;
+    private AudioSource source;
+    private String nextFileName;
+    private AudioSource nextSource;
+    private boolean queueExhausted;
+    private boolean prefetchRequested;
+    private boolean trackChanged;
+    private int frameSize;
+    private long bytesPerSecond;
+
+    private long position;
+    private long startNanos;
+    private long pausedNanos;
+    private long bytesSent;
+    private long bytesSentAtStart;
+    private boolean paused;
+    private volatile boolean ended;
+
+    public AudioStream(ClientSession session, int streamId, int userId, String clientInput, String fileName,
+                       AudioSource source) {
+        this(session, streamId, userId, clientInput, null, fileName, source);
+    }
+
+    public AudioStream(ClientSession session, int streamId, int userId, String clientInput, PlaybackQueue queue,
+                       String fileName, AudioSource source) {
+        this.session = session;
+        this.streamId = streamId;
+        this.userId = userId;
+        this.clientInput = clientInput;
+        this.queue = queue;
+        this.fileName = fileName;
+        this.prefetchRequested = queue != null;
+        useSource(source);
+    }
+
+    private void useSource(AudioSource newSource) {
+        AudioFormat format = newSource.getFormat();
+
+        this.source = newSource;
+        this.frameSize = Math.max(1, format.getFrameSize());
+        this.bytesPerSecond = byteRate(format);
+    }
+
+    private static long byteRate(AudioFormat format) {
+        float rate = format.getFrameRate() > 0 ? format.getFrameRate() : format.getSampleRate();
+
+        if (rate <= 0 || format.getFrameSize() <= 0) {
+            return DEFAULT_BYTE_RATE;
+        }
+
+        return (long) (rate * format.getFrameSize());
+    }
+
+    public synchronized void start() {
+        writeFormat();
+        startNanos = System.nanoTime();
+    }
+
+    private void writeFormat() {
+        AudioFormat audioFormat = source.getFormat();
+
+        String formatLine = audioFormat.getEncoding() + SPACE + audioFormat.getSampleRate() + SPACE +
+                audioFormat.getSampleSizeInBits() + SPACE + audioFormat.getChannels()
+                + SPACE + audioFormat.getFrameSize() + SPACE + audioFormat.getFrameRate()
+                + SPACE + audioFormat.isBigEndian();
+
+        session.writeFrame(FrameType.AUDIO_FORMAT, streamId, formatLine);
+    }
+
+    synchronized boolean pump(long nowNanos, byte[] scratch) throws IOException {
+        if (ended || !session.isOpen()) {
+            return false;
+        }
+
+        if (paused || isBackpressured()) {
+            return true;
+        }
+
+        long elapsedMillis = Math.max(0, nowNanos - startNanos) / NANOS_IN_MILLI;
+        long sinceStart = bytesSent - bytesSentAtStart;
+        long due = bytesPerSecond * (elapsedMillis + LEAD_MILLIS) / MILLIS_IN_SECOND - sinceStart;
+
+        int toSend = (int) Math.min(due, scratch.length);
+        toSend -= toSend % frameSize;
+
+        if (toSend <= 0) {
+            return true;
+        }
+
+        int bytesRead = source.transferTo(session, streamId, toSend, scratch);
+        if (bytesRead == -1) {
+            return queue != null && advance();
+        }
+
+        bytesSent += bytesRead;
+        position += bytesRead;
+        return true;
+    }
+
+    private boolean advance() throws IOException {
+        if (nextSource == null) {
+            return !queueExhausted;
+        }
+
+        AudioFormat previous = source.getFormat();
+        source.close();
+        fileName = nextFileName;
+        useSource(nextSource);
+        nextFileName = null;
+        nextSource = null;
+        position = 0;
+        prefetchRequested = true;
+        trackChanged = true;
+
+        if (!previous.matches(source.getFormat())) {
+            restart(true);
+        }
+        return true;
+    }
+
+    synchronized void offerNext(String nextFile, AudioSource next) throws IOException {
+        if (ended) {
+            if (next != null) {
+                next.close();
+            }
+            return;
+        }
+
+        nextFileName = nextFile;
+        nextSource = next;
+        queueExhausted = next == null;
+    }
+
+    synchronized boolean takePrefetchRequest() {
+        boolean requested = prefetchRequested && !ended;
+        prefetchRequested = false;
+        return requested;
+    }
+
+    synchronized String takeStartedTrack() {
+        String started = trackChanged ? fileName : null;
+        trackChanged = false;
+        return started;
+    }
+
+    PlaybackQueue getQueue() {
+        return queue;
+    }
+
+    boolean isBackpressured() {
+        return session.getPendingBytes() > HIGH_WATERMARK;
+    }
+
+    synchronized void finish() throws IOException {
+        if (!ended) {
+            ended = true;
+            session.writeFrame(FrameType.AUDIO_END, streamId);
+        }
+        source.close();
+
+        if (nextSource != null) {
+            nextSource.close();
+            nextSource = null;
+        }
+    }
+
+    public synchronized void cancel() {
+        if (ended) {
+            return;
+        }
+
+        ended = true;
+        session.writeFrame(FrameType.AUDIO_STATE, streamId, StreamState.STOPPED.name());
+        session.writeFrame(FrameType.AUDIO_END, streamId);
+    }
+
+    public synchronized boolean pause() {
+        if (ended || paused) {
+            return false;
+        }
+
+        paused = true;
+        pausedNanos = System.nanoTime();
+        session.writeFrame(FrameType.AUDIO_STATE, streamId, StreamState.PAUSED.name());
+        return true;
+    }
+
+    public synchronized boolean resume() {
+        if (ended || !paused) {
+            return false;
+        }
+
+        paused = false;
+        startNanos += System.nanoTime() - pausedNanos;
+        session.writeFrame(FrameType.AUDIO_STATE, streamId, StreamState.PLAYING.name());
+        return true;
+    }
+
+    public synchronized boolean seek(Duration offset) throws IOException {
+        if (ended) {
+            return false;
+        }
+
+        position = source.seek(toByteOffset(offset.toMillis()));
+        restart(false);
+
+        return true;
+    }
+
+    public synchronized boolean switchSource(AudioSource newSource) throws IOException {
+        if (ended) {
+            return false;
+        }
+
+        long millis = position * MILLIS_IN_SECOND / bytesPerSecond;
+        source.close();
+        useSource(newSource);
+
+        position = source.seek(toByteOffset(millis));
+        restart(true);
+
+        return true;
+    }
+
+    private long toByteOffset(long millis) {
+        long byteOffset = bytesPerSecond * millis / MILLIS_IN_SECOND;
+        return byteOffset - byteOffset % frameSize;
+    }
+
+    private void restart(boolean seamless) {
+        long now = System.nanoTime();
+        startNanos = now;
+        pausedNanos = now;
+        bytesSentAtStart = bytesSent;
+
+        if (seamless) {
+            session.writeFrame(FrameType.AUDIO_STATE, streamId, StreamState.SWITCHING.name());
+        }
+        writeFormat();
+        if (paused) {
+            session.writeFrame(FrameType.AUDIO_STATE, streamId, StreamState.PAUSED.name());
+        }
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    public ClientSession getSession() {
+        return session;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public synchronized String getFileName() {
+        return fileName;
+    }
+
+    public String getClientInput() {
+        return clientInput;
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+}
@@ -0,0 +1,174 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class Broadcast {
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_RETAINED_CHUNKS = 256;
+    private static final long TRIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final ByteBuffer END = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final String fileName;
+    private final AudioSource source;
+    private final SongCache songCache;
+    private final long createdNanos;
+    private final long windowNanos;
+    private final int chunkSize;
+    private final Counter chunksRead;
+    private final Consumer<Broadcast> onClose;
+
+    private final List<ByteBuffer> chunks;
+    private final Set<BroadcastSource> subscribers;
+    private long firstChunk;
+    private long lastTrimNanos;
+    private boolean exhausted;
+    private boolean closed;
+
+    public Broadcast(String fileName, AudioSource source, SongCache songCache, long windowNanos,
+                     Counter chunksRead, Consumer<Broadcast> onClose) {
+        this.fileName = fileName;
+        this.source = source;
+        this.songCache = songCache;
+        this.createdNanos = System.nanoTime();
+        this.windowNanos = windowNanos;
+        this.chunksRead = chunksRead;
+        this.onClose = onClose;
+
+        int frameSize = Math.max(1, source.getFormat().getFrameSize());
+        this.chunkSize = Math.max(frameSize, CHUNK_SIZE - CHUNK_SIZE % frameSize);
+        this.chunks = new ArrayList<>();
+        this.subscribers = new HashSet<>();
+    }
+
+    public synchronized BroadcastSource subscribe() {
+        if (closed || !isJoinable(System.nanoTime())) {
+            return null;
+        }
+
+        BroadcastSource subscriber = new BroadcastSource(this, songCache, fileName);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public AudioFormat getFormat() {
+        return source.getFormat();
+    }
+
+    public synchronized int getSubscribers() {
+        return subscribers.size();
+    }
+
+    synchronized ByteBuffer slice(long position, int maxBytes) throws IOException {
+        long index = position / chunkSize;
+
+        if (closed || index < firstChunk) {
+            return null;
+        }
+
+        while (!exhausted && index >= firstChunk + chunks.size()) {
+            readChunk();
+        }
+
+        if (index >= firstChunk + chunks.size()) {
+            return END;
+        }
+
+        ByteBuffer chunk = chunks.get((int) (index - firstChunk));
+        int offset = (int) (position % chunkSize);
+        if (offset >= chunk.limit()) {
+            return END;
+        }
+
+        trim();
+        return chunk.slice(offset, Math.min(maxBytes, chunk.limit() - offset));
+    }
+
+    void leave(BroadcastSource subscriber) {
+        synchronized (this) {
+            subscribers.remove(subscriber);
+        }
+
+        expire();
+    }
+
+    void expire() {
+        boolean idle;
+        synchronized (this) {
+            idle = subscribers.isEmpty() && !isJoinable(System.nanoTime());
+        }
+
+        if (idle) {
+            close();
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            chunks.clear();
+            try {
+                source.close();
+            } catch (IOException e) {
+                System.out.println("Unable to close the broadcast of " + fileName);
+            }
+        }
+
+        onClose.accept(this);
+    }
+
+    private boolean isJoinable(long nowNanos) {
+        return nowNanos - createdNanos < windowNanos;
+    }
+
+    private void readChunk() throws IOException {
+        ByteBuffer chunk = source.read(chunkSize);
+
+        if (chunk == null) {
+            exhausted = true;
+            return;
+        }
+
+        chunks.add(chunk);
+        chunksRead.increment();
+        if (chunk.limit() < chunkSize) {
+            exhausted = true;
+        }
+    }
+
+    private void trim() {
+        long now = System.nanoTime();
+        if (isJoinable(now) || now - lastTrimNanos < TRIM_INTERVAL_NANOS) {
+            return;
+        }
+        lastTrimNanos = now;
+
+        long slowest = Long.MAX_VALUE;
+        for (BroadcastSource each : subscribers) {
+            slowest = Math.min(slowest, each.getPosition() / chunkSize);
+        }
+
+        long keepFrom = Math.max(slowest, firstChunk + chunks.size() - MAX_RETAINED_CHUNKS);
+        int toDrop = (int) Math.min(chunks.size(), Math.max(0, keepFrom - firstChunk));
+
+        chunks.subList(0, toDrop).clear();
+        firstChunk += toDrop;
+    }
+}
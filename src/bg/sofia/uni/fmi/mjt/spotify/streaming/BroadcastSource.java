@@ -0,0 +1,125 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class BroadcastSource implements AudioSource {
+    private final Broadcast broadcast;
+    private final SongCache songCache;
+    private final String fileName;
+
+    private volatile long position;
+    private AudioSource detached;
+
+    public BroadcastSource(Broadcast broadcast, SongCache songCache, String fileName) {
+        this.broadcast = broadcast;
+        this.songCache = songCache;
+        this.fileName = fileName;
+        this.position = 0;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return broadcast.getFormat();
+    }
+
+    @Override
+    public int transferTo(ClientSession session, int streamId, int maxBytes, byte[] scratch) throws IOException {
+        if (detached != null) {
+            return transferDetached(session, streamId, maxBytes, scratch);
+        }
+
+        int sent = 0;
+        while (sent < maxBytes) {
+            ByteBuffer chunk = broadcast.slice(position, maxBytes - sent);
+
+            if (chunk == null) {
+                detach(position);
+                return sent > 0 ? sent : transferDetached(session, streamId, maxBytes, scratch);
+            }
+            if (!chunk.hasRemaining()) {
+                return sent > 0 ? sent : -1;
+            }
+
+            position += chunk.remaining();
+            sent += chunk.remaining();
+            session.writeFrame(FrameType.AUDIO_DATA, streamId, chunk);
+        }
+
+        return sent;
+    }
+
+    private int transferDetached(ClientSession session, int streamId, int maxBytes, byte[] scratch)
+            throws IOException {
+
+        int bytesRead = detached.transferTo(session, streamId, maxBytes, scratch);
+        if (bytesRead > 0) {
+            position += bytesRead;
+        }
+
+        return bytesRead;
+    }
+
+    @Override
+    public ByteBuffer read(int maxBytes) throws IOException {
+        return next(maxBytes);
+    }
+
+    @Override
+    public long seek(long byteOffset) throws IOException {
+        detach(byteOffset);
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        broadcast.leave(this);
+
+        if (detached != null) {
+            detached.close();
+        }
+    }
+
+    long getPosition() {
+        return position;
+    }
+
+    private ByteBuffer next(int maxBytes) throws IOException {
+        if (detached == null) {
+            ByteBuffer chunk = broadcast.slice(position, maxBytes);
+
+            if (chunk != null) {
+                position += chunk.remaining();
+                return chunk.hasRemaining() ? chunk : null;
+            }
+
+            detach(position);
+        }
+
+        ByteBuffer chunk = detached.read(maxBytes);
+        if (chunk != null) {
+            position += chunk.remaining();
+        }
+
+        return chunk;
+    }
+
+    private void detach(long byteOffset) throws IOException {
+        broadcast.leave(this);
+
+        if (detached == null) {
+            try {
+                detached = songCache.open(fileName);
+            } catch (UnsupportedAudioFileException e) {
+                throw new IOException(e);
+            }
+        }
+
+        position = detached.seek(byteOffset);
+    }
+}
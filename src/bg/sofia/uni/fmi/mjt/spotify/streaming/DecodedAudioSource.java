@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+public class DecodedAudioSource implements AudioSource {
+    private final Path path;
+    private AudioInputStream audio;
+    private long position;
+
+    public DecodedAudioSource(Path path) throws UnsupportedAudioFileException, IOException {
+        this.path = path;
+        this.audio = AudioSystem.getAudioInputStream(path.toFile());
+        this.position = 0;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return audio.getFormat();
+    }
+
+    @Override
+    public int transferTo(ClientSession session, int streamId, int maxBytes, byte[] scratch) throws IOException {
+        int bytesRead = audio.read(scratch, 0, Math.min(maxBytes, scratch.length));
+
+        if (bytesRead > 0) {
+            session.writeFrame(FrameType.AUDIO_DATA, streamId, scratch, 0, bytesRead);
+            position += bytesRead;
+        }
+
+        return bytesRead;
+    }
+
+    @Override
+    public ByteBuffer read(int maxBytes) throws IOException {
+        byte[] chunk = new byte[maxBytes];
+        int filled = 0;
+
+        int bytesRead;
+        while (filled < maxBytes && (bytesRead = audio.read(chunk, filled, maxBytes - filled)) != -1) {
+            filled += bytesRead;
+        }
+        position += filled;
+
+        return filled == 0 ? null : ByteBuffer.wrap(chunk, 0, filled).asReadOnlyBuffer();
+    }
+
+    @Override
+    public long seek(long byteOffset) throws IOException {
+        if (byteOffset < position) {
+            reopen();
+        }
+
+        while (position < byteOffset) {
+            long skipped = audio.skip(byteOffset - position);
+            if (skipped <= 0) {
+                break;
+            }
+            position += skipped;
+        }
+
+        return position;
+    }
+
+    private void reopen() throws IOException {
+        audio.close();
+
+        try {
+            audio = AudioSystem.getAudioInputStream(path.toFile());
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException(e);
+        }
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        audio.close();
+    }
+}
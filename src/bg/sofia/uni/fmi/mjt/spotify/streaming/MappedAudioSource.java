@@ -0,0 +1,62 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+
+public class MappedAudioSource implements AudioSource {
+    private final SongFile songFile;
+    private int position;
+
+    public MappedAudioSource(SongFile songFile) {
+        this.songFile = songFile;
+        this.position = 0;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return songFile.getFormat();
+    }
+
+    @Override
+    public int transferTo(ClientSession session, int streamId, int maxBytes, byte[] scratch) {
+        int remaining = songFile.getDataLength() - position;
+
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        int length = Math.min(maxBytes, remaining);
+        session.writeFrame(FrameType.AUDIO_DATA, streamId, songFile.slice(position, length));
+        position += length;
+
+        return length;
+    }
+
+    @Override
+    public ByteBuffer read(int maxBytes) {
+        int remaining = songFile.getDataLength() - position;
+
+        if (remaining <= 0) {
+            return null;
+        }
+
+        int length = Math.min(maxBytes, remaining);
+        ByteBuffer chunk = songFile.slice(position, length);
+        position += length;
+
+        return chunk;
+    }
+
+    @Override
+    public long seek(long byteOffset) {
+        position = (int) Math.min(byteOffset, songFile.getDataLength());
+        return position;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,54 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class PlaybackQueue {
+    private final List<String> fileNames;
+    private final boolean shuffle;
+    private final boolean repeat;
+    private final Random random;
+
+    private List<String> order;
+    private int index;
+
+    public PlaybackQueue(List<String> fileNames, boolean shuffle, boolean repeat) {
+        this(fileNames, shuffle, repeat, new Random());
+    }
+
+    public PlaybackQueue(List<String> fileNames, boolean shuffle, boolean repeat, Random random) {
+        this.fileNames = List.copyOf(fileNames);
+        this.shuffle = shuffle;
+        this.repeat = repeat;
+        this.random = random;
+        this.order = arrange();
+    }
+
+    private List<String> arrange() {
+        List<String> arranged = new ArrayList<>(fileNames);
+        if (shuffle) {
+            Collections.shuffle(arranged, random);
+        }
+
+        return arranged;
+    }
+
+    public synchronized String next() {
+        if (index == order.size()) {
+            if (!repeat || order.isEmpty()) {
+                return null;
+            }
+
+            order = arrange();
+            index = 0;
+        }
+
+        return order.get(index++);
+    }
+
+    public int size() {
+        return fileNames.size();
+    }
+}
@@ -0,0 +1,106 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SongCache {
+    private static final String RENDITIONS_DIRECTORY = ".renditions";
+    private static final String WAV_EXTENSION = ".wav";
+    private static final String DOT = ".";
+
+    private final Map<String, MappedSong> mappedSongs;
+    private final Map<String, Version> decodedOnly;
+    private final Map<Path, Object> renditionLocks;
+
+    public SongCache() {
+        this.mappedSongs = new ConcurrentHashMap<>();
+        this.decodedOnly = new ConcurrentHashMap<>();
+        this.renditionLocks = new ConcurrentHashMap<>();
+    }
+
+    public boolean hasRendition(String fileName, Quality quality) throws IOException {
+        return quality == Quality.HIGH || isFresh(Path.of(fileName), renditionPath(fileName, quality));
+    }
+
+    public String rendition(String fileName, Quality quality) throws UnsupportedAudioFileException, IOException {
+        if (quality == Quality.HIGH) {
+            return fileName;
+        }
+
+        Path source = Path.of(fileName);
+        Path target = renditionPath(fileName, quality);
+
+        synchronized (renditionLocks.computeIfAbsent(target, t -> new Object())) {
+            if (!isFresh(source, target)) {
+                Transcoder.transcode(source, target, quality);
+                mappedSongs.remove(target.toString());
+                decodedOnly.remove(target.toString());
+            }
+        }
+
+        return target.toString();
+    }
+
+    private static Path renditionPath(String fileName, Quality quality) {
+        Path source = Path.of(fileName);
+        String baseName = source.getFileName().toString();
+        if (baseName.endsWith(WAV_EXTENSION)) {
+            baseName = baseName.substring(0, baseName.length() - WAV_EXTENSION.length());
+        }
+
+        Path directory = source.getParent() == null ? Path.of(RENDITIONS_DIRECTORY)
+                : source.getParent().resolve(RENDITIONS_DIRECTORY);
+        return directory.resolve(baseName + DOT + quality.getName() + WAV_EXTENSION);
+    }
+
+    private static boolean isFresh(Path source, Path target) throws IOException {
+        return Files.exists(target)
+                && Files.getLastModifiedTime(target).compareTo(Files.getLastModifiedTime(source)) >= 0;
+    }
+
+    public AudioSource open(String fileName) throws UnsupportedAudioFileException, IOException {
+        Path path = Path.of(fileName);
+        Version version = Version.of(path);
+
+        if (!version.equals(decodedOnly.get(fileName))) {
+            MappedSong mapped = mappedSongs.get(fileName);
+
+            if (mapped == null || !mapped.version().equals(version)) {
+                try {
+                    MappedSong fresh = new MappedSong(SongFile.map(path), version);
+                    mapped = mappedSongs.merge(fileName, fresh,
+                            (current, candidate) -> current.version().equals(version) ? current : candidate);
+                    decodedOnly.remove(fileName);
+                } catch (UnsupportedAudioFileException e) {
+                    mappedSongs.remove(fileName);
+                    decodedOnly.put(fileName, version);
+                    mapped = null;
+                }
+            }
+
+            if (mapped != null) {
+                return new MappedAudioSource(mapped.songFile());
+            }
+        }
+
+        return new DecodedAudioSource(path);
+    }
+
+    private record MappedSong(SongFile songFile, Version version) {
+    }
+
+    private record Version(FileTime modified, long size) {
+        private static Version of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new Version(attributes.lastModifiedTime(), attributes.size());
+        }
+    }
+}
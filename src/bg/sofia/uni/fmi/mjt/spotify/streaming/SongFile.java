@@ -0,0 +1,126 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class SongFile {
+    private static final int RIFF = 0x46464952;
+    private static final int WAVE = 0x45564157;
+    private static final int FMT = 0x20746d66;
+    private static final int DATA = 0x61746164;
+    private static final int WAVE_OFFSET = 8;
+    private static final int CHUNK_SIZE_OFFSET = 4;
+    private static final int CHANNELS_OFFSET = 2;
+    private static final int SAMPLE_RATE_OFFSET = 4;
+    private static final int BLOCK_ALIGN_OFFSET = 12;
+    private static final int BITS_OFFSET = 14;
+    private static final int RIFF_HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 8;
+    private static final int FMT_MIN_SIZE = 16;
+    private static final int FMT_EXTENSIBLE_SUBFORMAT = 24;
+    private static final short FORMAT_PCM = 1;
+    private static final short FORMAT_EXTENSIBLE = (short) 0xFFFE;
+    private static final int BITS_IN_BYTE = 8;
+
+    private final MappedByteBuffer mapped;
+    private final AudioFormat format;
+    private final int dataOffset;
+    private final int dataLength;
+
+    private SongFile(MappedByteBuffer mapped, AudioFormat format, int dataOffset, int dataLength) {
+        this.mapped = mapped;
+        this.format = format;
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength;
+    }
+
+    public static SongFile map(Path path) throws IOException, UnsupportedAudioFileException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new UnsupportedAudioFileException("File is too large to be mapped: " + path);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer header = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < RIFF_HEADER_SIZE || header.getInt(0) != RIFF || header.getInt(WAVE_OFFSET) != WAVE) {
+            throw new UnsupportedAudioFileException("Not a RIFF/WAVE file: " + path);
+        }
+
+        AudioFormat format = null;
+        int position = RIFF_HEADER_SIZE;
+
+        while (position + CHUNK_HEADER_SIZE <= header.limit()) {
+            int chunkId = header.getInt(position);
+            long chunkSize = Integer.toUnsignedLong(header.getInt(position + CHUNK_SIZE_OFFSET));
+            int body = position + CHUNK_HEADER_SIZE;
+
+            if (chunkId == FMT) {
+                format = parseFormat(header, body, chunkSize);
+            } else if (chunkId == DATA) {
+                if (format == null) {
+                    throw new UnsupportedAudioFileException("Missing fmt chunk before data: " + path);
+                }
+
+                int length = (int) Math.min(chunkSize, header.limit() - body);
+                length -= length % format.getFrameSize();
+                return new SongFile(mapped, format, body, length);
+            }
+
+            position = (int) Math.min(header.limit(), body + chunkSize + (chunkSize & 1));
+        }
+
+        throw new UnsupportedAudioFileException("Missing data chunk: " + path);
+    }
+
+    private static AudioFormat parseFormat(ByteBuffer header, int body, long chunkSize)
+            throws UnsupportedAudioFileException {
+
+        if (chunkSize < FMT_MIN_SIZE || body + FMT_MIN_SIZE > header.limit()) {
+            throw new UnsupportedAudioFileException("Invalid fmt chunk");
+        }
+
+        short formatTag = header.getShort(body);
+        if (formatTag == FORMAT_EXTENSIBLE && chunkSize >= FMT_EXTENSIBLE_SUBFORMAT + Short.BYTES
+                && body + FMT_EXTENSIBLE_SUBFORMAT + Short.BYTES <= header.limit()) {
+            formatTag = header.getShort(body + FMT_EXTENSIBLE_SUBFORMAT);
+        }
+        if (formatTag != FORMAT_PCM) {
+            throw new UnsupportedAudioFileException("Only PCM WAV files can be mapped");
+        }
+
+        int channels = header.getShort(body + CHANNELS_OFFSET);
+        int sampleRate = header.getInt(body + SAMPLE_RATE_OFFSET);
+        int blockAlign = header.getShort(body + BLOCK_ALIGN_OFFSET);
+        int bitsPerSample = header.getShort(body + BITS_OFFSET);
+
+        if (channels <= 0 || sampleRate <= 0 || blockAlign <= 0) {
+            throw new UnsupportedAudioFileException("Invalid PCM parameters");
+        }
+
+        AudioFormat.Encoding encoding = bitsPerSample <= BITS_IN_BYTE ?
+                AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+
+        return new AudioFormat(encoding, sampleRate, bitsPerSample, channels, blockAlign, sampleRate, false);
+    }
+
+    public ByteBuffer slice(int offset, int length) {
+        return mapped.slice(dataOffset + offset, length).asReadOnlyBuffer();
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public int getDataLength() {
+        return dataLength;
+    }
+}
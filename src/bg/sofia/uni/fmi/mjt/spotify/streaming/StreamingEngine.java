@@ -0,0 +1,433 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.exceptions.NoActiveStreamException;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Histogram;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+import bg.sofia.uni.fmi.mjt.spotify.server.ServerErrorHandler;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class StreamingEngine {
+    public static final int CURRENT_STREAM = 0;
+
+    private static final String PLAY_ERROR = "ERROR occurred while playing song!";
+    private static final String NO_ACTIVE_STREAM = "There is no song playing at the moment!";
+    private static final String LANE_THREAD_NAME = "audio-lane-";
+    private static final String PREFETCH_THREAD_NAME = "audio-prefetch";
+    private static final String TRANSCODER_THREAD_NAME = "audio-transcoder";
+    private static final int MAX_LANES = 4;
+    private static final int TICK_MILLIS = 50;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SHUTDOWN_TIMEOUT_MILLIS = 1_000;
+    private static final long BROADCAST_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final ServerErrorHandler errorHandler;
+    private final Consumer<String> trackStarted;
+    private final SongCache songCache;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService prefetcher;
+    private final ExecutorService transcoder;
+    private final List<Lane> lanes;
+    private final Map<Integer, AudioStream> streams;
+    private final Map<ClientSession, Integer> currentStreamBySession;
+    private final Map<String, Broadcast> broadcasts;
+    private final Map<Integer, Quality> qualityByUser;
+    private final AtomicInteger nextLane;
+    private final AtomicInteger nextStreamId;
+    private final AtomicInteger activeStreams;
+    private final Counter streamsStarted;
+    private final Counter streamFailures;
+    private final Counter bytesStreamed;
+    private final Counter writeStalls;
+    private final Counter broadcastSubscriptions;
+    private final Counter broadcastChunksRead;
+    private final Counter tracksPrefetched;
+    private final Histogram laneTickNanos;
+
+    public StreamingEngine(ServerErrorHandler errorHandler) {
+        this(errorHandler, new MetricsRegistry());
+    }
+
+    public StreamingEngine(ServerErrorHandler errorHandler, MetricsRegistry metrics) {
+        this(errorHandler, metrics, fileName -> { });
+    }
+
+    public StreamingEngine(ServerErrorHandler errorHandler, MetricsRegistry metrics,
+                           Consumer<String> trackStarted) {
+        this.errorHandler = errorHandler;
+        this.trackStarted = trackStarted;
+        this.songCache = new SongCache();
+        this.streams = new ConcurrentHashMap<>();
+        this.currentStreamBySession = new ConcurrentHashMap<>();
+        this.broadcasts = new ConcurrentHashMap<>();
+        this.qualityByUser = new ConcurrentHashMap<>();
+        this.nextLane = new AtomicInteger();
+        this.nextStreamId = new AtomicInteger();
+        this.activeStreams = new AtomicInteger();
+        this.streamsStarted = metrics.counter("streams_started_total");
+        this.streamFailures = metrics.counter("stream_failures_total");
+        this.bytesStreamed = metrics.counter("stream_bytes_total");
+        this.writeStalls = metrics.counter("stream_write_stalls_total");
+        this.laneTickNanos = metrics.histogram("stream_lane_tick_nanos");
+        this.broadcastSubscriptions = metrics.counter("broadcast_subscriptions_total");
+        this.broadcastChunksRead = metrics.counter("broadcast_chunks_read_total");
+        this.tracksPrefetched = metrics.counter("queue_tracks_prefetched_total");
+        metrics.gauge("streams_active", activeStreams::get);
+        metrics.gauge("broadcasts_active", broadcasts::size);
+
+        int laneCount = Math.min(MAX_LANES, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(laneCount, runnable -> {
+            Thread thread = new Thread(runnable, LANE_THREAD_NAME + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, PREFETCH_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.transcoder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, TRANSCODER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.lanes = new ArrayList<>();
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane();
+            lanes.add(lane);
+            scheduler.scheduleAtFixedRate(lane::pumpAll, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleAtFixedRate(this::expireBroadcasts, BROADCAST_WINDOW_NANOS, BROADCAST_WINDOW_NANOS,
+                TimeUnit.NANOSECONDS);
+    }
+
+    public int play(ClientSession session, int userId, String fileName, String clientInput)
+            throws UnsupportedAudioFileException, IOException {
+
+        Quality quality = getQuality(userId);
+        boolean ready = songCache.hasRendition(fileName, quality);
+        AudioSource source = subscribe(ready ? songCache.rendition(fileName, quality) : fileName);
+        int streamId = nextStreamId.incrementAndGet();
+
+        AudioStream stream = new AudioStream(session, streamId, userId, clientInput, fileName, source);
+        start(session, stream);
+        if (!ready) {
+            transcodeInBackground(stream, fileName, quality);
+        }
+        return streamId;
+    }
+
+    public int play(ClientSession session, int userId, PlaybackQueue queue, String clientInput)
+            throws UnsupportedAudioFileException, IOException {
+
+        String fileName = queue.next();
+        Quality quality = getQuality(userId);
+        boolean ready = songCache.hasRendition(fileName, quality);
+        AudioSource source = songCache.open(ready ? songCache.rendition(fileName, quality) : fileName);
+        int streamId = nextStreamId.incrementAndGet();
+
+        AudioStream stream = new AudioStream(session, streamId, userId, clientInput, queue, fileName, source);
+        start(session, stream);
+        trackStarted.accept(fileName);
+        if (!ready) {
+            transcodeInBackground(stream, fileName, quality);
+        }
+        return streamId;
+    }
+
+    private void start(ClientSession session, AudioStream stream) {
+        int streamId = stream.getStreamId();
+
+        streams.put(streamId, stream);
+        Integer previousId = currentStreamBySession.put(session, streamId);
+        AudioStream previous = previousId == null ? null : streams.get(previousId);
+        if (previous != null) {
+            cancel(previous);
+        }
+
+        stream.start();
+        activeStreams.incrementAndGet();
+        streamsStarted.increment();
+        lanes.get(Math.floorMod(nextLane.getAndIncrement(), lanes.size())).add(stream);
+    }
+
+    private AudioSource subscribe(String fileName) throws UnsupportedAudioFileException, IOException {
+        Broadcast broadcast = broadcasts.get(fileName);
+        BroadcastSource subscription = broadcast == null ? null : broadcast.subscribe();
+
+        if (subscription == null) {
+            Broadcast candidate = new Broadcast(fileName, songCache.open(fileName), songCache,
+                    BROADCAST_WINDOW_NANOS, broadcastChunksRead, closed -> broadcasts.remove(fileName, closed));
+            BroadcastSource[] joined = new BroadcastSource[1];
+            Broadcast[] replaced = new Broadcast[1];
+
+            broadcast = broadcasts.compute(fileName, (name, current) -> {
+                joined[0] = current == null ? null : current.subscribe();
+                if (joined[0] != null) {
+                    return current;
+                }
+
+                replaced[0] = current;
+                joined[0] = candidate.subscribe();
+                return candidate;
+            });
+
+            if (broadcast != candidate) {
+                candidate.close();
+            }
+            if (replaced[0] != null) {
+                replaced[0].expire();
+            }
+            subscription = joined[0];
+        }
+
+        broadcastSubscriptions.increment();
+        return subscription;
+    }
+
+    private void expireBroadcasts() {
+        broadcasts.values().forEach(Broadcast::expire);
+    }
+
+    private void prefetch(AudioStream stream) {
+        prefetcher.execute(() -> {
+            PlaybackQueue queue = stream.getQueue();
+
+            try {
+                for (int attempt = 0; attempt < queue.size() && !stream.isEnded(); attempt++) {
+                    String fileName = queue.next();
+                    if (fileName == null) {
+                        break;
+                    }
+
+                    try {
+                        String rendition = songCache.rendition(fileName, getQuality(stream.getUserId()));
+                        stream.offerNext(fileName, songCache.open(rendition));
+                        tracksPrefetched.increment();
+                        return;
+                    } catch (UnsupportedAudioFileException | IOException e) {
+                        errorHandler.handleSystemError(stream.getClientInput(), e);
+                    }
+                }
+
+                stream.offerNext(null, null);
+            } catch (IOException e) {
+                errorHandler.handleSystemError(stream.getClientInput(), e);
+            }
+        });
+    }
+
+    public void stop(ClientSession session, int userId, int streamId) {
+        AudioStream stream = find(session, userId, streamId);
+
+        if (stream != null) {
+            currentStreamBySession.remove(stream.getSession(), stream.getStreamId());
+            cancel(stream);
+        }
+    }
+
+    public void pause(ClientSession session, int userId, int streamId) throws NoActiveStreamException {
+        if (!activeStream(session, userId, streamId).pause()) {
+            throw new NoActiveStreamException("The song is already paused!");
+        }
+    }
+
+    public void resume(ClientSession session, int userId, int streamId) throws NoActiveStreamException {
+        if (!activeStream(session, userId, streamId).resume()) {
+            throw new NoActiveStreamException("The song is not paused!");
+        }
+    }
+
+    public void seek(ClientSession session, int userId, int streamId, Duration offset)
+            throws NoActiveStreamException, IOException {
+        if (!activeStream(session, userId, streamId).seek(offset)) {
+            throw new NoActiveStreamException(NO_ACTIVE_STREAM);
+        }
+    }
+
+    public void setQuality(ClientSession session, int userId, int streamId, Quality quality)
+            throws UnsupportedAudioFileException, IOException {
+        qualityByUser.put(userId, quality);
+
+        AudioStream stream = find(session, userId, streamId);
+        if (stream == null || stream.isEnded()) {
+            return;
+        }
+
+        String fileName = stream.getFileName();
+        if (songCache.hasRendition(fileName, quality)) {
+            switchRendition(stream, songCache.rendition(fileName, quality));
+        } else {
+            transcodeInBackground(stream, fileName, quality);
+        }
+    }
+
+    private void transcodeInBackground(AudioStream stream, String fileName, Quality quality) {
+        transcoder.execute(() -> {
+            try {
+                String rendition = songCache.rendition(fileName, quality);
+
+                if (!stream.isEnded() && fileName.equals(stream.getFileName())
+                        && getQuality(stream.getUserId()) == quality) {
+                    switchRendition(stream, rendition);
+                }
+            } catch (UnsupportedAudioFileException | IOException e) {
+                errorHandler.handleSystemError(stream.getClientInput(), e);
+            }
+        });
+    }
+
+    private void switchRendition(AudioStream stream, String rendition)
+            throws UnsupportedAudioFileException, IOException {
+        AudioSource source = stream.getQueue() == null ? subscribe(rendition) : songCache.open(rendition);
+        if (!stream.switchSource(source)) {
+            source.close();
+        }
+    }
+
+    public Quality getQuality(int userId) {
+        return qualityByUser.getOrDefault(userId, Quality.HIGH);
+    }
+
+    public AudioStream getStream(int streamId) {
+        return streams.get(streamId);
+    }
+
+    private AudioStream find(ClientSession session, int userId, int streamId) {
+        Integer id = streamId == CURRENT_STREAM ? currentStreamBySession.get(session) : Integer.valueOf(streamId);
+        AudioStream stream = id == null ? null : streams.get(id);
+
+        return stream == null || stream.getUserId() != userId ? null : stream;
+    }
+
+    private AudioStream activeStream(ClientSession session, int userId, int streamId)
+            throws NoActiveStreamException {
+        AudioStream stream = find(session, userId, streamId);
+
+        if (stream == null || stream.isEnded()) {
+            throw new NoActiveStreamException(NO_ACTIVE_STREAM);
+        }
+
+        return stream;
+    }
+
+    private void cancel(AudioStream stream) {
+        streams.remove(stream.getStreamId(), stream);
+        stream.cancel();
+    }
+
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    public void shutdown() {
+        streams.values().forEach(this::cancel);
+        broadcasts.values().forEach(Broadcast::close);
+        prefetcher.shutdownNow();
+        transcoder.shutdownNow();
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        lanes.forEach(Lane::finishAll);
+    }
+
+    private void finish(AudioStream stream) {
+        activeStreams.decrementAndGet();
+        streams.remove(stream.getStreamId(), stream);
+        currentStreamBySession.remove(stream.getSession(), stream.getStreamId());
+
+        try {
+            stream.finish();
+        } catch (IOException e) {
+            errorHandler.handleSystemError(stream.getClientInput(), e);
+        }
+    }
+
+    private void fail(AudioStream stream, Exception e) {
+        streamFailures.increment();
+        errorHandler.writeClientError(stream.getSession(), stream.getStreamId(), PLAY_ERROR);
+        errorHandler.handleSystemError(stream.getClientInput(), e);
+        finish(stream);
+    }
+
+    private class Lane {
+        private final Set<AudioStream> streams = ConcurrentHashMap.newKeySet();
+        private final byte[] scratch = new byte[CHUNK_SIZE];
+
+        private void add(AudioStream stream) {
+            streams.add(stream);
+        }
+
+        private void finishAll() {
+            for (AudioStream stream : streams) {
+                if (streams.remove(stream)) {
+                    finish(stream);
+                }
+            }
+        }
+
+        private void pumpAll() {
+            long now = System.nanoTime();
+
+            for (AudioStream stream : streams) {
+                long sentBefore = stream.getBytesSent();
+
+                if (stream.isBackpressured()) {
+                    writeStalls.increment();
+                }
+
+                try {
+                    if (!stream.pump(now, scratch)) {
+                        if (streams.remove(stream)) {
+                            finish(stream);
+                        }
+                    } else {
+                        String started = stream.takeStartedTrack();
+                        if (started != null) {
+                            trackStarted.accept(started);
+                        }
+                        if (stream.takePrefetchRequest()) {
+                            prefetch(stream);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (streams.remove(stream)) {
+                        fail(stream, e);
+                    }
+                }
+
+                bytesStreamed.add(stream.getBytesSent() - sentBefore);
+            }
+
+            laneTickNanos.record(System.nanoTime() - now);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class Transcoder {
+    private static final int BITS_16 = 16;
+    private static final int BITS_8 = 8;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int UNSIGNED_OFFSET = 128;
+    private static final int FRAMES_PER_BLOCK = 4096;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int WAV_HEADER_SIZE = 44;
+    private static final int RIFF_HEADER_SIZE = 8;
+    private static final int FORMAT_CHUNK_SIZE = 16;
+    private static final short PCM_FORMAT = 1;
+
+    private Transcoder() {
+    }
+
+    public static void transcode(Path source, Path target, Quality quality)
+            throws UnsupportedAudioFileException, IOException {
+
+        Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY_SUFFIX);
+        Files.createDirectories(target.getParent());
+
+        try {
+            write(source, temporary, quality);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    private static void write(Path source, Path temporary, Quality quality)
+            throws UnsupportedAudioFileException, IOException {
+
+        try (AudioInputStream input = openAsPcm16(source);
+             FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            AudioFormat format = input.getFormat();
+            int channels = format.getChannels();
+            int divisor = quality.getRateDivisor();
+            int outputChannels = quality.isMono() ? 1 : channels;
+            int outputBits = quality.isEightBit() ? BITS_8 : BITS_16;
+            float outputRate = format.getSampleRate() / divisor;
+
+            AudioFormat outputFormat = new AudioFormat(
+                    outputBits == BITS_8 ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED,
+                    outputRate, outputBits, outputChannels, outputChannels * outputBits / BITS_8, outputRate, false);
+
+            byte[] block = new byte[FRAMES_PER_BLOCK * divisor * format.getFrameSize()];
+            ByteBuffer pcm = ByteBuffer.allocate(FRAMES_PER_BLOCK * outputFormat.getFrameSize())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int groupSize = divisor * format.getFrameSize();
+            int carried = 0;
+            long dataLength = 0;
+
+            output.position(WAV_HEADER_SIZE);
+            int bytesRead;
+            while ((bytesRead = input.read(block, carried, block.length - carried)) != -1) {
+                int available = carried + bytesRead;
+                int usable = available - available % groupSize;
+
+                for (int group = 0; group < usable; group += groupSize) {
+                    writeFrame(pcm, block, group, divisor, channels, outputChannels, outputBits);
+                }
+
+                pcm.flip();
+                dataLength += pcm.remaining();
+                while (pcm.hasRemaining()) {
+                    output.write(pcm);
+                }
+                pcm.clear();
+
+                carried = available - usable;
+                System.arraycopy(block, usable, block, 0, carried);
+            }
+
+            ByteBuffer header = header(outputFormat, dataLength);
+            while (header.hasRemaining()) {
+                output.write(header, header.position());
+            }
+        }
+    }
+
+    private static AudioInputStream openAsPcm16(Path source) throws UnsupportedAudioFileException, IOException {
+        AudioInputStream input = AudioSystem.getAudioInputStream(source.toFile());
+        AudioFormat format = input.getFormat();
+
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) && format.getSampleSizeInBits() == BITS_16
+                && !format.isBigEndian()) {
+            return input;
+        }
+
+        AudioFormat pcm16 = new AudioFormat(format.getSampleRate(), BITS_16, format.getChannels(), true, false);
+        try {
+            return AudioSystem.getAudioInputStream(pcm16, input);
+        } catch (IllegalArgumentException e) {
+            input.close();
+            throw new UnsupportedAudioFileException("Unable to convert " + source + " to 16-bit PCM");
+        }
+    }
+
+    private static void writeFrame(ByteBuffer output, byte[] block, int group, int divisor,
+                                   int channels, int outputChannels, int outputBits) {
+
+        int inputPerOutput = channels / outputChannels;
+
+        for (int outputChannel = 0; outputChannel < outputChannels; outputChannel++) {
+            long sum = 0;
+
+            for (int frame = 0; frame < divisor; frame++) {
+                for (int channel = 0; channel < inputPerOutput; channel++) {
+                    int offset = group + (frame * channels + outputChannel * inputPerOutput + channel) * Short.BYTES;
+                    sum += (short) ((block[offset] & BYTE_MASK) | (block[offset + 1] << BITS_8));
+                }
+            }
+
+            int sample = (int) (sum / ((long) divisor * inputPerOutput));
+            if (outputBits == BITS_8) {
+                output.put((byte) ((sample >> BITS_8) + UNSIGNED_OFFSET));
+            } else {
+                output.putShort((short) sample);
+            }
+        }
+    }
+
+    private static ByteBuffer header(AudioFormat format, long dataLength) {
+        ByteBuffer header = ByteBuffer.allocate(WAV_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) (WAV_HEADER_SIZE - RIFF_HEADER_SIZE + dataLength));
+        header.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        header.put("fmt ".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(FORMAT_CHUNK_SIZE);
+        header.putShort(PCM_FORMAT);
+        header.putShort((short) format.getChannels());
+        header.putInt((int) format.getSampleRate());
+        header.putInt((int) format.getSampleRate() * format.getFrameSize());
+        header.putShort((short) format.getFrameSize());
+        header.putShort((short) format.getSampleSizeInBits());
+        header.put("data".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) dataLength);
+
+        return header.flip();
+    }
+}
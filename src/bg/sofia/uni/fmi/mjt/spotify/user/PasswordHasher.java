@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.spotify.user;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Histogram;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+public class PasswordHasher {
+    public static final int DEFAULT_ITERATIONS = 120_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String SCHEME = "pbkdf2";
+    private static final String SEPARATOR = "$";
+    private static final String SEPARATOR_REGEX = "\\$";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final int PARTS = 4;
+    private static final int ITERATIONS = 1;
+    private static final int SALT = 2;
+    private static final int KEY = 3;
+
+    private final int iterations;
+    private final SecureRandom random;
+    private final Histogram hashNanos;
+
+    public PasswordHasher(int iterations, MetricsRegistry metrics) {
+        this.iterations = iterations;
+        this.random = new SecureRandom();
+        this.hashNanos = metrics.histogram("password_hash_nanos");
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+
+        byte[] key = derive(password, salt, iterations, KEY_BITS);
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        return SCHEME + SEPARATOR + iterations + SEPARATOR + encoder.encodeToString(salt)
+                + SEPARATOR + encoder.encodeToString(key);
+    }
+
+    public boolean verify(String password, String stored) {
+        String[] parts = stored.split(SEPARATOR_REGEX);
+
+        if (!isHashed(parts)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] salt = decoder.decode(parts[SALT]);
+        byte[] expected = decoder.decode(parts[KEY]);
+        byte[] actual = derive(password, salt, Integer.parseInt(parts[ITERATIONS]), expected.length * Byte.SIZE);
+
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    public boolean needsRehash(String stored) {
+        String[] parts = stored.split(SEPARATOR_REGEX);
+
+        return !isHashed(parts) || Integer.parseInt(parts[ITERATIONS]) < iterations;
+    }
+
+    private static boolean isHashed(String[] parts) {
+        return parts.length == PARTS && SCHEME.equals(parts[0]);
+    }
+
+    private byte[] derive(String password, byte[] salt, int rounds, int keyBits) {
+        long start = System.nanoTime();
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, keyBits);
+
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+            hashNanos.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package bg.sofia.uni.fmi.mjt.spotify.user;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+public class UserTable {
+    public static final int NO_USER = -1;
+
+    private static final int EMPTY = -1;
+    private static final int DELETED = -2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    private static final int PAGE_SIZE = 1 << 20;
+    private static final int PAGE_SHIFT = 32;
+    private static final int LENGTH_BITS = 16;
+    private static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private static final int HALF_WORD = 16;
+
+    private final ReadWriteLock lock;
+    private final List<byte[]> pages;
+    private int pageUsed;
+
+    private int[] ids;
+    private long[] records;
+    private int[] lengths;
+    private int[] emails;
+    private int[] emailHashes;
+    private int size;
+    private int tombstones;
+    private long liveBytes;
+    private long garbageBytes;
+
+    public UserTable() {
+        this.lock = new ReentrantReadWriteLock();
+        this.pages = new ArrayList<>();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public User get(int id) {
+        lock.readLock().lock();
+        try {
+            int slot = idSlot(id);
+            return slot == NO_USER ? null : decode(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public User find(String email) {
+        byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+
+        lock.readLock().lock();
+        try {
+            int slot = emailSlot(bytes, email.hashCode());
+            return slot == NO_USER ? null : decode(emails[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int idOf(String email) {
+        byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+
+        lock.readLock().lock();
+        try {
+            int slot = emailSlot(bytes, email.hashCode());
+            return slot == NO_USER ? NO_USER : ids[emails[slot]];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean add(User user) {
+        if (user.id() < 0) {
+            throw new IllegalArgumentException("User ids should not be negative: " + user.id());
+        }
+
+        byte[] email = encode(user.email());
+        byte[] password = encode(user.password());
+        int hash = user.email().hashCode();
+
+        lock.writeLock().lock();
+        try {
+            if (idSlot(user.id()) != NO_USER || emailSlot(email, hash) != NO_USER) {
+                return false;
+            }
+
+            ensureCapacity();
+
+            int slot = insertId(ids, user.id());
+            records[slot] = append(email, password);
+            lengths[slot] = email.length << LENGTH_BITS | password.length;
+            insertEmail(emails, emailHashes, hash, slot);
+            size++;
+            liveBytes += email.length + password.length;
+
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean replace(User expected, User user) {
+        if (expected.id() != user.id() || !expected.email().equals(user.email())) {
+            throw new IllegalArgumentException("Only the password of a user can be replaced");
+        }
+
+        byte[] email = encode(user.email());
+        byte[] password = encode(user.password());
+
+        lock.writeLock().lock();
+        try {
+            int slot = idSlot(expected.id());
+            if (slot == NO_USER || !decode(slot).equals(expected)) {
+                return false;
+            }
+
+            release(slot);
+            records[slot] = append(email, password);
+            lengths[slot] = email.length << LENGTH_BITS | password.length;
+            liveBytes += email.length + password.length;
+            compactIfWasteful();
+
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(User user) {
+        byte[] email = encode(user.email());
+
+        lock.writeLock().lock();
+        try {
+            int slot = idSlot(user.id());
+            if (slot == NO_USER || !decode(slot).equals(user)) {
+                return false;
+            }
+
+            release(slot);
+            ids[slot] = DELETED;
+            emails[emailSlot(email, user.email().hashCode())] = DELETED;
+            size--;
+            tombstones++;
+            compactIfWasteful();
+
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<User> users() {
+        lock.readLock().lock();
+        try {
+            List<User> result = new ArrayList<>(size);
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (ids[slot] >= 0) {
+                    result.add(decode(slot));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Integer, User> asMap() {
+        return new UsersView();
+    }
+
+    public Map<String, Integer> emailIndex() {
+        return new EmailsView();
+    }
+
+    private int idSlot(int id) {
+        if (id < 0) {
+            return NO_USER;
+        }
+
+        int mask = ids.length - 1;
+
+        for (int slot = mix(id) & mask; ; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+            if (ids[slot] == EMPTY) {
+                return NO_USER;
+            }
+        }
+    }
+
+    private int emailSlot(byte[] email, int hash) {
+        int mask = emails.length - 1;
+
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int current = emails[slot];
+            if (current == EMPTY) {
+                return NO_USER;
+            }
+            if (current != DELETED && emailHashes[slot] == hash && emailEquals(current, email)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean emailEquals(int slot, byte[] email) {
+        if (lengths[slot] >>> LENGTH_BITS != email.length) {
+            return false;
+        }
+
+        byte[] page = pages.get((int) (records[slot] >>> PAGE_SHIFT));
+        int offset = (int) records[slot];
+        return Arrays.equals(page, offset, offset + email.length, email, 0, email.length);
+    }
+
+    private User decode(int slot) {
+        byte[] page = pages.get((int) (records[slot] >>> PAGE_SHIFT));
+        int offset = (int) records[slot];
+        int emailLength = lengths[slot] >>> LENGTH_BITS;
+        int passwordLength = lengths[slot] & MAX_LENGTH;
+
+        return new User(ids[slot], new String(page, offset, emailLength, StandardCharsets.UTF_8),
+                new String(page, offset + emailLength, passwordLength, StandardCharsets.UTF_8));
+    }
+
+    private long append(byte[] email, byte[] password) {
+        long record = reserve(email.length + password.length);
+        byte[] page = pages.get((int) (record >>> PAGE_SHIFT));
+        int offset = (int) record;
+
+        System.arraycopy(email, 0, page, offset, email.length);
+        System.arraycopy(password, 0, page, offset + email.length, password.length);
+        return record;
+    }
+
+    private long reserve(int length) {
+        if (pages.isEmpty() || pageUsed + length > pages.get(pages.size() - 1).length) {
+            pages.add(new byte[Math.max(PAGE_SIZE, length)]);
+            pageUsed = 0;
+        }
+
+        long record = (long) (pages.size() - 1) << PAGE_SHIFT | pageUsed;
+        pageUsed += length;
+        return record;
+    }
+
+    private int recordLength(int slot) {
+        return (lengths[slot] >>> LENGTH_BITS) + (lengths[slot] & MAX_LENGTH);
+    }
+
+    private void release(int slot) {
+        int length = recordLength(slot);
+        liveBytes -= length;
+        garbageBytes += length;
+    }
+
+    private void compactIfWasteful() {
+        if (garbageBytes >= PAGE_SIZE && garbageBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<byte[]> oldPages = new ArrayList<>(pages);
+        pages.clear();
+
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] < 0) {
+                continue;
+            }
+
+            int length = recordLength(slot);
+            byte[] oldPage = oldPages.get((int) (records[slot] >>> PAGE_SHIFT));
+            long record = reserve(length);
+
+            System.arraycopy(oldPage, (int) records[slot], pages.get((int) (record >>> PAGE_SHIFT)), (int) record,
+                    length);
+            records[slot] = record;
+        }
+        garbageBytes = 0;
+    }
+
+    private void ensureCapacity() {
+        if ((long) (size + tombstones + 1) * LOAD_DENOMINATOR < (long) ids.length * LOAD_NUMERATOR) {
+            return;
+        }
+
+        int capacity = INITIAL_CAPACITY;
+        while ((long) (size + 1) * LOAD_DENOMINATOR >= (long) capacity * LOAD_NUMERATOR) {
+            capacity <<= 1;
+        }
+
+        int[] oldIds = ids;
+        long[] oldRecords = records;
+        int[] oldLengths = lengths;
+        int[] oldEmails = emails;
+        int[] oldHashes = emailHashes;
+
+        allocate(capacity);
+
+        for (int each = 0; each < oldEmails.length; each++) {
+            int oldSlot = oldEmails[each];
+            if (oldSlot < 0) {
+                continue;
+            }
+
+            int slot = insertId(ids, oldIds[oldSlot]);
+            records[slot] = oldRecords[oldSlot];
+            lengths[slot] = oldLengths[oldSlot];
+            insertEmail(emails, emailHashes, oldHashes[each], slot);
+        }
+        tombstones = 0;
+
+        if (garbageBytes > 0) {
+            compact();
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        records = new long[capacity];
+        lengths = new int[capacity];
+        emails = new int[capacity];
+        emailHashes = new int[capacity];
+
+        Arrays.fill(ids, EMPTY);
+        Arrays.fill(emails, EMPTY);
+    }
+
+    private static int insertId(int[] table, int id) {
+        int mask = table.length - 1;
+        int slot = mix(id) & mask;
+
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = id;
+        return slot;
+    }
+
+    private static void insertEmail(int[] table, int[] hashes, int hash, int idSlot) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = idSlot;
+        hashes[slot] = hash;
+    }
+
+    private static int mix(int key) {
+        int hash = key * GOLDEN_RATIO;
+        return hash ^ (hash >>> HALF_WORD);
+    }
+
+    private static byte[] encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Value is too long to be stored: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private class UsersView extends AbstractMap<Integer, User> {
+
+        @Override
+        public User get(Object key) {
+            return key instanceof Integer id ? UserTable.this.get(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return UserTable.this.size();
+        }
+
+        @Override
+        public Set<Entry<Integer, User>> entrySet() {
+            return users().stream()
+                    .map(user -> Map.entry(user.id(), user))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    private class EmailsView extends AbstractMap<String, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String email)) {
+                return null;
+            }
+
+            int id = idOf(email);
+            return id == NO_USER ? null : id;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return UserTable.this.size();
+        }
+
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            return users().stream()
+                    .map(user -> Map.entry(user.email(), user.id()))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+}
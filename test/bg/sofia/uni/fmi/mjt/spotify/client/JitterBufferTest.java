@@ -0,0 +1,56 @@
+package bg.sofia.uni.fmi.mjt.spotify.client;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JitterBufferTest {
+    private static final int STREAM_ID = 3;
+    private static final int CAPACITY = 64;
+    private static final AudioFormat FORMAT = new AudioFormat(1_000, 16, 2, true, false);
+
+    @Test
+    public void testPartialFramesAreCarriedOver() {
+        JitterBuffer buffer = new JitterBuffer(CAPACITY, 0);
+        buffer.begin(STREAM_ID, FORMAT);
+        JitterBuffer.Segment segment = buffer.awaitSegment();
+
+        buffer.write(STREAM_ID, ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6}));
+        byte[] destination = new byte[CAPACITY];
+        assertEquals(4, buffer.read(segment, destination), "Only whole frames should be read!");
+
+        buffer.write(STREAM_ID, ByteBuffer.wrap(new byte[] {7, 8}));
+        assertEquals(4, buffer.read(segment, destination), "Partial frames should be carried over!");
+        assertEquals(5, destination[0], "Partial frames should be carried over!");
+
+        buffer.end();
+        assertEquals(JitterBuffer.END_OF_SEGMENT, buffer.read(segment, destination),
+                "End of segment does not work correctly!");
+    }
+
+    @Test
+    public void testNextSegmentIsQueuedWhileCurrentPlays() {
+        JitterBuffer buffer = new JitterBuffer(CAPACITY, 0);
+        buffer.begin(STREAM_ID, FORMAT);
+        buffer.write(STREAM_ID, ByteBuffer.wrap(new byte[] {1, 2, 3, 4}));
+        buffer.end();
+
+        buffer.begin(STREAM_ID + 1, FORMAT);
+        buffer.write(STREAM_ID + 1, ByteBuffer.wrap(new byte[] {5, 6, 7, 8}));
+        buffer.write(STREAM_ID, ByteBuffer.wrap(new byte[] {9, 9, 9, 9}));
+
+        byte[] destination = new byte[CAPACITY];
+        JitterBuffer.Segment first = buffer.awaitSegment();
+        assertEquals(4, buffer.read(first, destination), "Segments do not work correctly!");
+        assertEquals(JitterBuffer.END_OF_SEGMENT, buffer.read(first, destination), "Segments do not work correctly!");
+
+        JitterBuffer.Segment second = buffer.awaitSegment();
+        assertEquals(STREAM_ID + 1, second.getStreamId(), "Prefetched segment should follow the current one!");
+        assertEquals(4, buffer.read(second, destination), "Data of finished streams should be ignored!");
+        assertEquals(5, destination[0], "Prefetched segment does not work correctly!");
+        assertEquals(0, buffer.getUnderruns(), "There should be no underruns!");
+    }
+}
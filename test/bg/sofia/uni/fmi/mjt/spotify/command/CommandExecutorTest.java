@@ -10,10 +10,12 @@ import bg.sofia.uni.fmi.mjt.spotify.exceptions.NoSuchUserException;
 import bg.sofia.uni.fmi.mjt.spotify.exceptions.PlaylistAlreadyExistsException;
 import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyAccountAlreadyExistsException;
 import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyExceptions;
+import bg.sofia.uni.fmi.mjt.spotify.storage.TextFileStorage;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -26,6 +28,7 @@ import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -215,6 +218,14 @@ public class CommandExecutorTest {
                 "Search method does not work correctly!");
     }
 
+    @Test
+    public void testSearchWithMultipleWordsWorksCorrectly() throws IOException, SpotifyExceptions {
+        String search = getInput(USER_ID, AvailableCommands.SEARCH.getName(), "LOVE", "kanye", "why");
+        String result = "[" + commandExecutor.getSongs().get("why i love you").toString() + "]";
+        assertEquals(result, commandExecutor.execute(search),
+                "Search should return only songs matching all of the words!");
+    }
+
     @Test
     public void testTopWithoutArgumentsThrowsException() {
         String top = getInput(USER_ID, AvailableCommands.TOP.getName());
@@ -355,6 +366,56 @@ public class CommandExecutorTest {
                 "No arguments should be provided!");
     }
 
+    @Test
+    public void testSeekWithInvalidPositionThrowsException() {
+        String seek = getInput(USER_ID, AvailableCommands.SEEK.getName(), "-5");
+        assertThrows(InvalidCommandException.class, () -> commandExecutor.execute(seek),
+                "Seeking to a negative position should throw exception!");
+    }
+
+    @Test
+    public void testSeekWorksCorrectly() throws IOException, SpotifyExceptions {
+        String seek = getInput(USER_ID, AvailableCommands.SEEK.getName(), "1.5");
+        assertEquals("SEEK;1500", commandExecutor.execute(seek), "Seek does not work correctly!");
+    }
+
+    @Test
+    public void testPlayPlaylistWorksCorrectly() throws IOException, SpotifyExceptions {
+        String play = getInput(USER_ID, AvailableCommands.PLAY_PLAYLIST.getName(), "testFile", "--repeat");
+        String result = commandExecutor.execute(play);
+
+        assertTrue(result.startsWith("PLAYLIST;false;true;"), "Play-playlist does not work correctly!");
+        assertTrue(result.contains("songs" + File.separator + commandExecutor.getSongs().get(SONG).getFilename()),
+                "Play-playlist should queue the songs of the playlist!");
+    }
+
+    @Test
+    public void testPlaylistTracksAreRankedWhenTheyStart(@TempDir Path directory)
+            throws IOException, SpotifyExceptions {
+        Path users = Files.writeString(directory.resolve("users.txt"), "2 pesho@gmail.com peshko");
+        Path songs = Files.writeString(directory.resolve("songs.txt"), String.join(System.lineSeparator(),
+                "song gerii 0", "Redbone Childish_Gambino 0", "Why_I_love_you Jay-Z_&_Kanye_West 1"));
+        Path playlists = Files.createDirectories(directory.resolve(PLAYLISTS));
+        Files.writeString(playlists.resolve("2 road.txt"), "Redbone Childish_Gambino 0");
+
+        try (CommandExecutor executor = new CommandExecutor(new TextFileStorage(users, songs, playlists),
+                Duration.ofMinutes(1))) {
+            String top = getInput(USER_ID, AvailableCommands.TOP.getName(), "3");
+            String ranking = executor.execute(top);
+
+            String queue = executor.execute(getInput(USER_ID, AvailableCommands.PLAY_PLAYLIST.getName(),
+                    "road", "--repeat"));
+            assertEquals(ranking, executor.execute(top), "Queueing a playlist should not count as a play!");
+
+            String track = queue.split(";")[3];
+            executor.recordPlay(track);
+            executor.recordPlay(track);
+            assertEquals("[" + executor.getSongs().get(SONG) + "]",
+                    executor.execute(getInput(USER_ID, AvailableCommands.TOP.getName(), "1")),
+                    "Starting a playlist track should count as a play!");
+        }
+    }
+
     public static Reader initUsers() {
         String[] users = {"0 test@gmail.com test123",
                 "1 maria@gmail.com mari01 ",
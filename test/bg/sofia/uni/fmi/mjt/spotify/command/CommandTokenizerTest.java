@@ -0,0 +1,32 @@
+package bg.sofia.uni.fmi.mjt.spotify.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CommandTokenizerTest {
+
+    @Test
+    public void testQuotedArgumentsAreSingleTokens() {
+        String[] expected = {"token", "add-song-to", "my mix", "why i love you"};
+
+        assertArrayEquals(expected, CommandTokenizer.tokenize("  token add-song-to \"my mix\"   \"why i love you\" "),
+                "Tokenizing quoted arguments does not work correctly!");
+        assertArrayEquals(new String[0], CommandTokenizer.tokenize(" \"\"  "),
+                "Blank input should not produce tokens!");
+    }
+
+    @Test
+    public void testTokenizesBufferFromItsPosition() {
+        byte[] bytes = "xxplay \u03b6\u03c9\u03ae".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer input = ByteBuffer.wrap(bytes, 2, bytes.length - 2).slice();
+
+        assertArrayEquals(new String[] {"play", "\u03b6\u03c9\u03ae"}, CommandTokenizer.tokenize(input),
+                "Tokenizing UTF-8 buffers does not work correctly!");
+        assertEquals(input.limit(), input.position(), "The buffer should be consumed!");
+    }
+}
@@ -0,0 +1,96 @@
+package bg.sofia.uni.fmi.mjt.spotify.memory;
+
+import bg.sofia.uni.fmi.mjt.spotify.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.exceptions.SpotifyExceptions;
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.storage.TextFileStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CatalogReloaderTest {
+    private static final String SONGS = "Redbone Childish_Gambino 3" + System.lineSeparator();
+    private static final String REDBONE = "Redbone Childish_Gambino";
+    private static final String NEW_SONG = "Heroes David_Bowie";
+    private static final int USER_ID = 1;
+
+    @TempDir
+    Path directory;
+
+    private CatalogReloader reloader(CommandExecutor executor) throws IOException {
+        Path songsFile = directory.resolve("availableSongs.txt");
+        Files.writeString(songsFile, SONGS);
+
+        Path songsDirectory = Files.createDirectories(directory.resolve("songs"));
+        Files.createFile(songsDirectory.resolve(REDBONE + ".wav"));
+        Files.createFile(songsDirectory.resolve(NEW_SONG + ".wav"));
+        Files.createFile(songsDirectory.resolve("unnamed.wav"));
+
+        return new CatalogReloader(songsFile, songsDirectory, executor::reloadCatalog);
+    }
+
+    private CommandExecutor executor() {
+        return new CommandExecutor(new TextFileStorage(new StringReader(""), new StringWriter(),
+                new StringReader(SONGS), directory.resolve("saved.txt"), directory.resolve("playlists")),
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testDiscoverMergesSongsFileAndDirectory() throws IOException {
+        try (CommandExecutor executor = executor(); CatalogReloader reloader = reloader(executor)) {
+            List<Song> songs = reloader.discover();
+
+            assertEquals(List.of(REDBONE, NEW_SONG), songs.stream().map(Song::getFilename).toList(),
+                    "Discovering songs does not work correctly!");
+            assertEquals(3, songs.get(0).getCountPlays(), "Play counts should be read from the songs file!");
+        }
+    }
+
+    @Test
+    public void testReloadPublishesNewSongsAndKeepsExistingOnes()
+            throws IOException, SpotifyExceptions, InterruptedException {
+        try (CommandExecutor executor = executor()) {
+            Song redbone = executor.getSongs().get("redbone");
+            executor.execute(USER_ID, "play redbone");
+
+            assertEquals("[]", executor.execute(USER_ID, "search heroes"),
+                    "New songs should not be visible before a reload!");
+
+            try (CatalogReloader reloader = reloader(executor)) {
+                for (int i = 0; i < 100 && executor.getSongs().get("heroes") == null; i++) {
+                    Thread.sleep(50);
+                }
+
+                assertSame(redbone, executor.getSongs().get("redbone"), "Existing songs should be kept!");
+                assertEquals("[Song: \"Redbone\" by \"Childish Gambino\", Song: \"Heroes\" by \"David Bowie\"]",
+                        executor.execute(USER_ID, "top 2"), "Rankings should be rebuilt with live play counts!");
+                assertEquals("[Song: \"Heroes\" by \"David Bowie\"]", executor.execute(USER_ID, "search heroes"),
+                        "New songs should be published when the reloader starts!");
+                assertFalse(executor.reloadCatalog(reloader.discover()),
+                        "Unchanged catalogs should not be published!");
+            }
+        }
+    }
+
+    @Test
+    public void testRemovedSongsLeaveTheRanking() throws IOException, SpotifyExceptions {
+        try (CommandExecutor executor = executor()) {
+            executor.reloadCatalog(List.of(Song.of(NEW_SONG + " 0")));
+            executor.execute(USER_ID, "play heroes");
+
+            assertEquals("[Song: \"Heroes\" by \"David Bowie\"]", executor.execute(USER_ID, "top 2"),
+                    "Removed songs should leave the ranking!");
+        }
+    }
+}
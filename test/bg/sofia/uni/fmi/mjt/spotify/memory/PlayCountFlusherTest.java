@@ -0,0 +1,117 @@
+package bg.sofia.uni.fmi.mjt.spotify.memory;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.storage.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.storage.StorageState;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PlayCountFlusherTest {
+    private static final Duration NEVER = Duration.ofHours(1);
+    private static final Song REDBONE = Song.of("Redbone Childish_Gambino 0");
+    private static final Song HEROES = Song.of("Heroes David_Bowie 0");
+
+    private static class RecordingStorage implements Storage {
+        private final List<Set<Song>> saves = new ArrayList<>();
+        private int failures;
+
+        @Override
+        public StorageState load() {
+            return new StorageState();
+        }
+
+        @Override
+        public void saveUser(User user) {
+        }
+
+        @Override
+        public synchronized void savePlayCounts(Collection<Song> changed, Collection<Song> catalog)
+                throws IOException {
+            if (failures > 0) {
+                failures--;
+                throw new IOException("Disk is full");
+            }
+            saves.add(new HashSet<>(changed));
+        }
+
+        @Override
+        public void removeSongs(Collection<Song> removed) {
+        }
+
+        @Override
+        public void savePlaylist(int userId, String name) {
+        }
+
+        @Override
+        public void saveSongToPlaylist(int userId, String name, Song song) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testPlaysAreCoalescedIntoOneWrite() throws IOException {
+        RecordingStorage storage = new RecordingStorage();
+
+        try (PlayCountFlusher flusher = new PlayCountFlusher(storage, () -> List.of(REDBONE, HEROES), NEVER)) {
+            for (int i = 0; i < 100; i++) {
+                flusher.markDirty(REDBONE);
+            }
+            flusher.markDirty(HEROES);
+
+            flusher.flush();
+            flusher.flush();
+
+            assertEquals(List.of(Set.of(REDBONE, HEROES)), storage.saves,
+                    "Repeated plays should be coalesced into a single write!");
+        }
+    }
+
+    @Test
+    public void testFailedWritesAreRetriedAndPendingPlaysFlushedOnClose() throws IOException {
+        RecordingStorage storage = new RecordingStorage();
+        storage.failures = 1;
+
+        PlayCountFlusher flusher = new PlayCountFlusher(storage, () -> List.of(REDBONE, HEROES), NEVER);
+        flusher.markDirty(REDBONE);
+
+        assertThrows(IOException.class, flusher::flush, "Storage failures should be reported!");
+        assertEquals(List.of(), storage.saves, "Failed writes should not be recorded!");
+
+        flusher.markDirty(HEROES);
+        flusher.close();
+
+        assertEquals(List.of(Set.of(REDBONE, HEROES)), storage.saves,
+                "Songs from a failed write should be saved again on close!");
+    }
+
+    @Test
+    public void testRemovedSongsAreNotSavedAgain() throws IOException {
+        RecordingStorage storage = new RecordingStorage();
+
+        try (PlayCountFlusher flusher = new PlayCountFlusher(storage, () -> List.of(HEROES), NEVER)) {
+            flusher.markDirty(REDBONE);
+            flusher.remove(List.of(REDBONE));
+            flusher.markDirty(REDBONE);
+            flusher.markDirty(HEROES);
+
+            flusher.flush();
+
+            assertEquals(List.of(Set.of(HEROES)), storage.saves,
+                    "Plays of removed songs should not bring them back!");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package bg.sofia.uni.fmi.mjt.spotify.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramTest {
+    private static final double PRECISION = 1.0 / 16;
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(5, histogram.valueAtPercentile(50), "Median of small values does not work correctly!");
+        assertEquals(10, histogram.valueAtPercentile(100), "Max percentile does not work correctly!");
+        assertEquals(55, histogram.getSum(), "Histogram sum does not work correctly!");
+    }
+
+    @Test
+    public void testPercentilesStayWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertWithin(500_000_000L, histogram.valueAtPercentile(50));
+        assertWithin(990_000_000L, histogram.valueAtPercentile(99));
+        assertWithin(999_000_000L, histogram.valueAtPercentile(99.9));
+        assertEquals(1_000_000_000L, histogram.getMax(), "Histogram max does not work correctly!");
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.valueAtPercentile(99), "Empty histogram should report zero!");
+        assertEquals(0, histogram.getCount(), "Empty histogram should have no values!");
+    }
+
+    @Test
+    public void testWindowedPercentilesForgetOldValues() {
+        AtomicLong now = new AtomicLong();
+        Histogram histogram = new Histogram(1_000, now::get);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000);
+        }
+
+        now.addAndGet(1_500);
+        histogram.record(10);
+        assertEquals(1_000_000, histogram.getMax(), "The previous window should still be reported!");
+
+        now.addAndGet(1_000);
+        histogram.record(10);
+        assertEquals(10, histogram.valueAtPercentile(99), "Old windows should not affect percentiles!");
+        assertEquals(10, histogram.getMax(), "Old windows should not affect the max!");
+        assertEquals(102, histogram.getCount(), "Histogram count should stay cumulative!");
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * PRECISION,
+                "Percentile " + actual + " is not close to " + expected + "!");
+    }
+}
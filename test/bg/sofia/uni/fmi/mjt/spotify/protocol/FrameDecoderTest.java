@@ -0,0 +1,93 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FrameDecoderTest {
+    private static final int STREAM_ID = 7;
+    private static final String COMMAND = "2 search why";
+
+    @Test
+    public void testDecodeFrameSplitAcrossReads() throws ProtocolException {
+        ByteBuffer encoded = Frame.of(FrameType.COMMAND, STREAM_ID, COMMAND).encode();
+        FrameDecoder decoder = new FrameDecoder();
+
+        Frame frame = null;
+        while (encoded.hasRemaining()) {
+            assertNull(frame, "Frame should not be decoded before all of its bytes arrive!");
+            frame = decoder.decode(encoded.slice(encoded.position(), 1));
+            encoded.position(encoded.position() + 1);
+        }
+
+        assertNotNull(frame, "Frame split byte by byte should be decoded!");
+        assertEquals(FrameType.COMMAND, frame.type(), "Decoded frame type does not match!");
+        assertEquals(STREAM_ID, frame.streamId(), "Decoded stream id does not match!");
+        assertEquals(COMMAND, frame.text(), "Decoded payload does not match!");
+    }
+
+    @Test
+    public void testDecodeMergedFrames() throws ProtocolException {
+        ByteBuffer first = Frame.of(FrameType.AUDIO_DATA, STREAM_ID, "abc").encode();
+        ByteBuffer second = new Frame(FrameType.AUDIO_END, STREAM_ID, new byte[0]).encode();
+
+        ByteBuffer merged = ByteBuffer.allocate(first.remaining() + second.remaining());
+        merged.put(first).put(second).flip();
+
+        FrameDecoder decoder = new FrameDecoder();
+
+        assertEquals(FrameType.AUDIO_DATA, decoder.decode(merged).type(), "First frame should be audio data!");
+        assertEquals(FrameType.AUDIO_END, decoder.decode(merged).type(), "Second frame should be end of stream!");
+        assertNull(decoder.decode(merged), "No more frames should be decoded!");
+    }
+
+    @Test
+    public void testDecodeInvalidLengthThrowsException() {
+        ByteBuffer header = Frame.header(FrameType.AUDIO_DATA, STREAM_ID, -1);
+
+        assertThrows(ProtocolException.class, () -> new FrameDecoder().decode(header),
+                "Negative frame length should throw exception!");
+    }
+
+    @Test
+    public void testDecodeOversizedCommandThrowsException() {
+        ByteBuffer header = Frame.header(FrameType.COMMAND, STREAM_ID, Frame.MAX_COMMAND_PAYLOAD + 1);
+
+        assertThrows(ProtocolException.class,
+                () -> new FrameDecoder(Frame.MAX_COMMAND_PAYLOAD).decode(header),
+                "Frames above the payload limit should be rejected before allocating!");
+    }
+
+    @Test
+    public void testAudioPayloadIsForwardedToSink() throws ProtocolException {
+        ByteBuffer audio = Frame.of(FrameType.AUDIO_DATA, STREAM_ID, "abcdef").encode();
+        ByteBuffer end = new Frame(FrameType.AUDIO_END, STREAM_ID, new byte[0]).encode();
+
+        ByteBuffer merged = ByteBuffer.allocate(audio.remaining() + end.remaining());
+        merged.put(audio).put(end).flip();
+
+        StringBuilder forwarded = new StringBuilder();
+        PayloadSink sink = (streamId, payload) -> {
+            while (payload.hasRemaining()) {
+                forwarded.append((char) payload.get());
+            }
+        };
+
+        FrameDecoder decoder = new FrameDecoder();
+        Frame frame = null;
+        while (merged.hasRemaining() && frame == null) {
+            frame = decoder.decode(merged.slice(merged.position(), Math.min(4, merged.remaining())), sink);
+            merged.position(Math.min(merged.limit(), merged.position() + 4));
+        }
+
+        assertEquals("abcdef", forwarded.toString(), "Audio payload should be forwarded to the sink!");
+        assertNotNull(frame, "Frames after the audio payload should still be decoded!");
+        assertEquals(FrameType.AUDIO_END, frame.type(), "Frame after the audio payload should be end of stream!");
+    }
+}
@@ -0,0 +1,90 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncErrorLogTest {
+    private static final long WINDOW = 1_000;
+    private static final long MAX_FILE_SIZE = 2_048;
+
+    @TempDir
+    Path directory;
+
+    private static Exception failure() {
+        return trimmed(new IOException("Disk is full"));
+    }
+
+    private static Exception otherFailure() {
+        return trimmed(new IllegalStateException("Disk is full"));
+    }
+
+    private static Exception trimmed(Exception error) {
+        error.setStackTrace(new StackTraceElement[0]);
+        return error;
+    }
+
+    private static String awaitText(Path file, String part) throws Exception {
+        for (int i = 0; i < 50; i++) {
+            if (Files.exists(file) && Files.readString(file).contains(part)) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        return Files.exists(file) ? Files.readString(file) : "";
+    }
+
+    private static int occurrences(String text, String part) {
+        return text.split(part, -1).length - 1;
+    }
+
+    @Test
+    public void testSuppressedErrorsAreReportedWhenTheWindowExpiresAndOnClose() throws Exception {
+        Path file = directory.resolve("errors.txt");
+        AtomicLong now = new AtomicLong();
+        AsyncErrorLog log = new AsyncErrorLog(file, new MetricsRegistry(), MAX_FILE_SIZE, WINDOW, now::get);
+
+        for (int i = 0; i < 5; i++) {
+            log.log("play redbone", failure());
+        }
+        now.addAndGet(WINDOW);
+        assertTrue(awaitText(file, "suppressed").contains("suppressed"),
+                "Expired windows should be reported without waiting for the next error!");
+
+        log.log("play heroes", otherFailure());
+        log.log("play heroes", otherFailure());
+        log.close();
+
+        String text = Files.readString(file);
+        assertEquals(2, occurrences(text, "Disk is full"), "Duplicates inside a window should be suppressed!");
+        assertTrue(text.contains("play redbone" + System.lineSeparator() + "(4 identical errors suppressed"),
+                "Suppressed errors should be reported when the window expires!");
+        assertTrue(text.contains("play heroes" + System.lineSeparator() + "(1 identical errors suppressed"),
+                "Suppressed errors should be reported on close!");
+    }
+
+    @Test
+    public void testFilesAreRolledWhenTooLarge() throws IOException {
+        Path file = directory.resolve("errors.txt");
+        AsyncErrorLog log = new AsyncErrorLog(file, new MetricsRegistry(), MAX_FILE_SIZE, 0, System::nanoTime);
+
+        for (int i = 0; i < 200; i++) {
+            log.log("command " + i, failure());
+        }
+        log.close();
+
+        assertTrue(Files.exists(directory.resolve("errors.txt.1")), "Large logs should be rolled!");
+        assertTrue(Files.exists(directory.resolve("errors.txt.5")), "Rolled files should be shifted!");
+        assertFalse(Files.exists(directory.resolve("errors.txt.6")), "Only five rolled files should be kept!");
+        assertTrue(Files.size(file) <= MAX_FILE_SIZE, "The active file should stay under the size limit!");
+    }
+}
@@ -0,0 +1,75 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ClientSessionTest {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED = 16;
+    private static final int OVERFLOW = 5 * 1024 * 1024;
+
+    private Selector selector;
+    private SocketChannel client;
+    private BufferPool bufferPool;
+    private AtomicInteger closed;
+    private ClientSession session;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        selector = Selector.open();
+        bufferPool = new BufferPool(BUFFER_SIZE, MAX_POOLED);
+        closed = new AtomicInteger();
+
+        SocketChannel serverSide;
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            client = SocketChannel.open(listener.getLocalAddress());
+            serverSide = listener.accept();
+        }
+
+        serverSide.configureBlocking(false);
+        SelectionKey key = serverSide.register(selector, SelectionKey.OP_READ);
+        session = new ClientSession(key, bufferPool, Runnable::run, closed::incrementAndGet);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        selector.close();
+    }
+
+    @Test
+    public void testOverflowingSessionReturnsItsReadBufferOnClose() throws IOException {
+        ByteBuffer readBuffer = session.getReadBuffer();
+
+        session.writeFrame(FrameType.AUDIO_DATA, 1, ByteBuffer.allocate(OVERFLOW));
+
+        assertFalse(session.isOpen(), "A session over the output limit should be dropped!");
+        assertEquals(-1, session.getChannel().read(ByteBuffer.allocate(1)),
+                "The selector should see the end of a dropped session!");
+
+        session.close();
+        session.close();
+
+        assertEquals(1, closed.get(), "Closing a session should be counted once!");
+        assertSame(readBuffer, bufferPool.acquire(), "The read buffer should be returned to the pool!");
+        assertNotSame(readBuffer, bufferPool.acquire(), "The read buffer should be returned only once!");
+    }
+}
@@ -0,0 +1,83 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SerialExecutorTest {
+    private static final int TASKS = 1_000;
+    private static final int FAILING_TASK = 10;
+
+    private ExecutorService workers;
+    private ExecutorService authWorkers;
+
+    @BeforeEach
+    public void setUp() {
+        workers = Executors.newFixedThreadPool(4);
+        authWorkers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        workers.shutdownNow();
+        authWorkers.shutdownNow();
+    }
+
+    @Test
+    public void testTasksRunInSubmissionOrderAcrossPools() throws InterruptedException {
+        SerialExecutor connection = new SerialExecutor(workers);
+        List<Integer> executed = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(TASKS);
+
+        for (int i = 0; i < TASKS; i++) {
+            int task = i;
+            Runnable record = () -> {
+                executed.add(task);
+                done.countDown();
+            };
+
+            if (i % 7 == 0) {
+                connection.execute(record, authWorkers);
+            } else {
+                connection.execute(record);
+            }
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "All tasks should be executed!");
+        assertEquals(IntStream.range(0, TASKS).boxed().toList(), executed,
+                "Tasks of one connection should run in submission order!");
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStallTheConnection() throws InterruptedException {
+        SerialExecutor connection = new SerialExecutor(workers);
+        List<Integer> executed = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(TASKS - 1);
+
+        for (int i = 0; i < TASKS; i++) {
+            int task = i;
+            connection.execute(() -> {
+                if (task == FAILING_TASK) {
+                    throw new IllegalStateException("Command failed");
+                }
+                executed.add(task);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Tasks after a failure should still be executed!");
+        assertEquals(IntStream.range(0, TASKS).filter(i -> i != FAILING_TASK).boxed().toList(), executed,
+                "Tasks after a failure should keep their order!");
+    }
+}
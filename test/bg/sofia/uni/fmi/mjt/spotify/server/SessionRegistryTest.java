@@ -0,0 +1,116 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SessionRegistryTest {
+    private static final int USER_ID = 7;
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(1);
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED = 16;
+
+    private final List<SocketChannel> channels = new ArrayList<>();
+    private Selector selector;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        selector = Selector.open();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        selector.close();
+    }
+
+    private ClientSession connection() throws IOException {
+        SocketChannel serverSide;
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            channels.add(SocketChannel.open(listener.getLocalAddress()));
+            serverSide = listener.accept();
+        }
+        channels.add(serverSide);
+
+        serverSide.configureBlocking(false);
+        SelectionKey key = serverSide.register(selector, SelectionKey.OP_READ);
+        return new ClientSession(key, new BufferPool(BUFFER_SIZE, MAX_POOLED), Runnable::run, () -> { });
+    }
+
+    @Test
+    public void testTokensResolveToTheirSession() {
+        try (SessionRegistry sessions = new SessionRegistry(IDLE_TIMEOUT, new MetricsRegistry())) {
+            UserSession first = sessions.create(USER_ID);
+            UserSession second = sessions.create(USER_ID);
+
+            assertNotEquals(first.getToken(), second.getToken(), "Tokens should be unique!");
+            assertSame(first, sessions.resolve(first.getToken()), "Resolving tokens does not work correctly!");
+            assertNull(sessions.resolve(String.valueOf(USER_ID)), "User ids should not be accepted as tokens!");
+        }
+    }
+
+    @Test
+    public void testIdleSessionsExpire() {
+        try (SessionRegistry sessions = new SessionRegistry(IDLE_TIMEOUT, new MetricsRegistry())) {
+            UserSession session = sessions.create(USER_ID);
+
+            assertEquals(1, sessions.expireIdle(System.nanoTime() + IDLE_TIMEOUT.multipliedBy(2).toNanos()),
+                    "Idle sessions should expire!");
+            assertNull(sessions.resolve(session.getToken()), "Expired tokens should not be accepted!");
+        }
+    }
+
+    @Test
+    public void testInvalidatedTokensAreRejected() {
+        try (SessionRegistry sessions = new SessionRegistry(IDLE_TIMEOUT, new MetricsRegistry())) {
+            UserSession session = sessions.create(USER_ID);
+
+            sessions.invalidate(session.getToken());
+
+            assertNull(sessions.resolve(session.getToken()), "Invalidated tokens should not be accepted!");
+            assertEquals(0, sessions.size(), "Invalidating a token does not work correctly!");
+        }
+    }
+
+    @Test
+    public void testTokenIsRevokedWhenItsLastConnectionCloses() throws IOException {
+        try (SessionRegistry sessions = new SessionRegistry(IDLE_TIMEOUT, new MetricsRegistry())) {
+            UserSession session = sessions.create(USER_ID);
+            ClientSession commands = connection();
+            ClientSession stream = connection();
+            sessions.bind(commands, session);
+            sessions.bind(stream, session);
+            sessions.bind(stream, session);
+
+            commands.close();
+            sessions.unbind(commands);
+            assertSame(session, sessions.resolve(session.getToken()),
+                    "A token should stay valid while one of its connections is open!");
+
+            stream.close();
+            sessions.unbind(stream);
+            assertNull(sessions.resolve(session.getToken()),
+                    "A token should be revoked when its last connection closes!");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package bg.sofia.uni.fmi.mjt.spotify.song;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SongRankingTest {
+    private static final int THREADS = 4;
+    private static final int PLAYS_PER_THREAD = 2_000;
+
+    @Test
+    public void testTopOrdersByPlaysAndBreaksTiesByFilename() {
+        Song redbone = Song.of("Redbone Childish_Gambino 5");
+        Song heroes = Song.of("Heroes David_Bowie 2");
+        Song africa = Song.of("Africa Toto 2");
+        Song silence = Song.of("Silence Nobody 0");
+
+        SongRanking ranking = new SongRanking();
+        List.of(silence, heroes, redbone, africa).forEach(ranking::add);
+
+        assertEquals(List.of(redbone, africa, heroes), ranking.top(3), "Ranking does not work correctly!");
+
+        ranking.recordPlay(heroes);
+        assertEquals(List.of(redbone, heroes, africa, silence), ranking.top(10),
+                "Recording plays does not update the ranking correctly!");
+    }
+
+    @Test
+    public void testConcurrentPlaysKeepTheRankingConsistent() throws Exception {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            songs.add(Song.of("Song_" + i + " Author 0"));
+        }
+
+        SongRanking ranking = new SongRanking();
+        songs.forEach(ranking::add);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        List<Future<?>> players = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Song song = songs.get(i);
+            int plays = PLAYS_PER_THREAD * (i + 1);
+            players.add(executor.submit(() -> {
+                for (int j = 0; j < plays; j++) {
+                    ranking.recordPlay(song);
+                }
+            }));
+        }
+
+        Future<?> reader = executor.submit(() -> {
+            while (players.stream().anyMatch(player -> !player.isDone())) {
+                List<Song> top = ranking.top(THREADS);
+                assertEquals(top.size(), new HashSet<>(top).size(), "Songs should be ranked only once!");
+            }
+        });
+
+        for (Future<?> player : players) {
+            player.get();
+        }
+        reader.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS), "Players should have finished!");
+
+        assertEquals(List.of(songs.get(3), songs.get(2), songs.get(1), songs.get(0)), ranking.top(THREADS),
+                "Concurrent plays are not ranked correctly!");
+        assertEquals(PLAYS_PER_THREAD * THREADS, songs.get(3).getCountPlays(), "Plays should not be lost!");
+    }
+}
@@ -0,0 +1,191 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogStorageTest {
+    private static final String USERS = "0 proba@gmail.com probaPa$$1" + System.lineSeparator()
+            + "1 geri@gmail.com newPa$$12" + System.lineSeparator();
+    private static final String SONGS = "song gerii 0" + System.lineSeparator()
+            + "Redbone Childish_Gambino 1" + System.lineSeparator();
+    private static final String REDBONE = "Redbone Childish_Gambino";
+    private static final String PLAYLIST = "chill";
+    private static final long SMALL_SEGMENT = 256;
+
+    @TempDir
+    Path directory;
+
+    private Storage bootstrap() {
+        return new TextFileStorage(new StringReader(USERS), new StringWriter(), new StringReader(SONGS),
+                directory.resolve("songs.txt"), directory.resolve("playlists"));
+    }
+
+    private LogStorage open(long segmentSize) {
+        return new LogStorage(directory.resolve("data"), bootstrap(), segmentSize);
+    }
+
+    @Test
+    public void testLoadBootstrapsFromTextFiles() throws IOException {
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            StorageState state = storage.load();
+
+            assertEquals(1, state.getUsers().size(), "Bootstrapping users does not work correctly!");
+            assertEquals(1, state.getPlayCounts().get(REDBONE), "Bootstrapping songs does not work correctly!");
+        }
+    }
+
+    @Test
+    public void testChangesAreReplayedAfterReopen() throws IOException {
+        Song redbone = Song.of(REDBONE + " 1");
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            storage.load();
+            storage.saveUser(new User(2, "new@gmail.com", "newPa$$12"));
+            storage.savePlaylist(2, PLAYLIST);
+            storage.saveSongToPlaylist(2, PLAYLIST, redbone);
+            redbone.incrementCount();
+            storage.savePlayCounts(List.of(redbone), List.of(redbone));
+        }
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            StorageState state = storage.load();
+
+            assertEquals(2, state.getUsers().size(), "Replaying users does not work correctly!");
+            assertEquals(2, state.getPlayCounts().get(REDBONE), "Replaying play counts does not work correctly!");
+
+            PlaylistRecord playlist = state.getPlaylists().iterator().next();
+            assertEquals(List.of(REDBONE), playlist.songFilenames(), "Replaying playlists does not work correctly!");
+        }
+    }
+
+    @Test
+    public void testRemovedSongsStayRemovedAfterReopen() throws IOException {
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            storage.load();
+            storage.removeSongs(List.of(Song.of(REDBONE + " 1")));
+        }
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            StorageState state = storage.load();
+            assertFalse(state.getPlayCounts().containsKey(REDBONE), "Removed songs should not come back!");
+
+            storage.compact();
+        }
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            StorageState state = storage.load();
+            assertFalse(state.getPlayCounts().containsKey(REDBONE), "Compaction should keep songs removed!");
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsLatestState() throws IOException {
+        Song redbone = Song.of(REDBONE + " 1");
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            storage.load();
+            for (int i = 0; i < 100; i++) {
+                redbone.incrementCount();
+                storage.savePlayCounts(List.of(redbone), List.of(redbone));
+            }
+            storage.compact();
+        }
+
+        try (Stream<Path> files = Files.list(directory.resolve("data"))) {
+            long segments = files.filter(p -> p.getFileName().toString().endsWith(".log")).count();
+            assertTrue(segments < 100, "Compaction should remove closed segments!");
+        }
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            StorageState state = storage.load();
+            assertEquals(101, state.getPlayCounts().get(REDBONE), "Compaction does not work correctly!");
+        }
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws IOException {
+        Song redbone = Song.of(REDBONE + " 1");
+
+        try (LogStorage storage = open(SMALL_SEGMENT * 1024)) {
+            storage.load();
+            redbone.incrementCount();
+            storage.savePlayCounts(List.of(redbone), List.of(redbone));
+            redbone.incrementCount();
+            storage.savePlayCounts(List.of(redbone), List.of(redbone));
+        }
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory.resolve("data"))) {
+            segment = files.filter(p -> p.getFileName().toString().endsWith(".log"))
+                    .filter(p -> p.toFile().length() > 0)
+                    .findFirst()
+                    .orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (LogStorage storage = open(SMALL_SEGMENT * 1024)) {
+            StorageState state = storage.load();
+            assertEquals(2, state.getPlayCounts().get(REDBONE), "Recovering a torn tail does not work correctly!");
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshotFallsBackToThePreviousOne() throws IOException {
+        Song redbone = Song.of(REDBONE + " 1");
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            storage.load();
+            for (int i = 0; i < 100; i++) {
+                redbone.incrementCount();
+                storage.savePlayCounts(List.of(redbone), List.of(redbone));
+            }
+            storage.compact();
+        }
+
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(directory.resolve("data"))) {
+            snapshots = files.filter(p -> p.getFileName().toString().endsWith(".snap")).sorted().toList();
+        }
+        Files.write(snapshots.get(snapshots.size() - 1), new byte[] {0, 0, 0, 1, 2, 3, 4, 5});
+
+        try (LogStorage storage = open(SMALL_SEGMENT)) {
+            StorageState state = storage.load();
+            assertEquals(101, state.getPlayCounts().get(REDBONE), "Falling back to an older snapshot does not work!");
+        }
+
+        for (Path snapshot : snapshots) {
+            Files.write(snapshot, new byte[] {0, 0, 0, 1, 2, 3, 4, 5});
+        }
+        assertThrows(IOException.class, () -> open(SMALL_SEGMENT).load(),
+                "Loading without any valid snapshot should fail instead of losing data!");
+    }
+
+    @Test
+    public void testAppendAfterCloseFailsInsteadOfBlocking() throws IOException {
+        LogStorage storage = open(SMALL_SEGMENT);
+        storage.load();
+        storage.close();
+
+        assertThrows(IOException.class, () -> storage.saveUser(new User(2, "new@gmail.com", "newPa$$12")),
+                "Appending to a closed storage should fail!");
+    }
+}
@@ -0,0 +1,42 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MappedLinesTest {
+    private static final int LINES = 100_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testLinesAreParsedInOrderAcrossChunks() throws IOException {
+        Path file = directory.resolve("lines.txt");
+        Files.writeString(file, "header\n" + IntStream.range(0, LINES)
+                .mapToObj(i -> i + " padding-to-make-the-file-span-several-chunks")
+                .collect(Collectors.joining("\n")));
+
+        List<Integer> parsed = MappedLines.parse(file, 1, line -> Integer.parseInt(line.split(" ")[0]));
+
+        assertEquals(IntStream.range(0, LINES).boxed().toList(), parsed,
+                "Parsing chunked files does not work correctly!");
+    }
+
+    @Test
+    public void testBlankLinesAndCarriageReturnsAreSkipped() throws IOException {
+        Path file = directory.resolve("users.txt");
+        Files.writeString(file, "\r\n1 pesho@gmail.com peshko\r\n\r\n  \n2 geri@gmail.com newPa$$12\r\n");
+
+        assertEquals(List.of("1 pesho@gmail.com peshko", "2 geri@gmail.com newPa$$12"),
+                MappedLines.parse(file, 1, line -> line), "Skipping blank lines does not work correctly!");
+    }
+}
@@ -0,0 +1,76 @@
+package bg.sofia.uni.fmi.mjt.spotify.storage;
+
+import bg.sofia.uni.fmi.mjt.spotify.song.Song;
+import bg.sofia.uni.fmi.mjt.spotify.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class TextFileStorageTest {
+    private static final String HEADER = "0 proba@gmail.com probaPa$$1";
+    private static final String GERI = "1 geri@gmail.com newPa$$12";
+    private static final String NEW = "2 new@gmail.com newPa$$12";
+    private static final String HASHED = "pbkdf2$1000$salt$hash";
+
+    @TempDir
+    Path directory;
+
+    private TextFileStorage open(String users) throws IOException {
+        Path usersFile = directory.resolve("users.txt");
+        Files.writeString(usersFile, users);
+        Files.writeString(directory.resolve("songs.txt"), "");
+
+        return new TextFileStorage(usersFile, directory.resolve("songs.txt"), directory.resolve("playlists"));
+    }
+
+    @Test
+    public void testUpgradedPasswordReplacesThePlaintextLine() throws IOException {
+        TextFileStorage storage = open(String.join(System.lineSeparator(), HEADER, GERI, NEW));
+        storage.load();
+
+        storage.saveUser(new User(1, "geri@gmail.com", HASHED));
+        storage.saveUser(new User(3, "third@gmail.com", HASHED));
+
+        List<String> lines = Files.readAllLines(directory.resolve("users.txt"));
+        assertEquals(List.of(HEADER, "1 geri@gmail.com " + HASHED, NEW, "3 third@gmail.com " + HASHED), lines,
+                "Upgrading a password should rewrite the user's line!");
+        assertFalse(lines.contains(GERI), "The plaintext password should be removed!");
+    }
+
+    @Test
+    public void testLaterRecordsWinForDuplicateUsers() throws IOException {
+        TextFileStorage storage = open(String.join(System.lineSeparator(), HEADER, GERI,
+                "1 geri@gmail.com " + HASHED, "3 geri@gmail.com otherPa$$1"));
+
+        StorageState state = storage.load();
+
+        assertEquals(List.of(new User(3, "geri@gmail.com", "otherPa$$1")), List.copyOf(state.getUsers()),
+                "The latest record of a duplicate user should be kept!");
+    }
+
+    @Test
+    public void testSavingPlayCountsKeepsExternalEdits() throws IOException {
+        TextFileStorage storage = open(HEADER);
+        Path songsFile = directory.resolve("songs.txt");
+        Files.writeString(songsFile, String.join(System.lineSeparator(),
+                "Redbone Childish_Gambino 1", "Heroes David_Bowie 2"));
+
+        List<Song> catalog = storage.load().getSongs();
+        Song redbone = catalog.get(0);
+        redbone.incrementCount();
+
+        Files.writeString(songsFile, String.join(System.lineSeparator(),
+                "Redbone Childish_Gambino 1", "Starman David_Bowie 0"));
+        storage.savePlayCounts(List.of(redbone), catalog);
+
+        assertEquals(List.of("Redbone Childish_Gambino 2", "Starman David_Bowie 0"), Files.readAllLines(songsFile),
+                "Saving play counts should not undo edits made to the songs file!");
+    }
+}
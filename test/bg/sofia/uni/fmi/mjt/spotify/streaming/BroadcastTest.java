@@ -0,0 +1,118 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.Counter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BroadcastTest {
+    private static final int FRAME_SIZE = 4;
+    private static final int FRAMES = 20_000;
+    private static final int READ_SIZE = 3_000;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long SHORT_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @TempDir
+    Path directory;
+
+    private byte[] pcm;
+    private String fileName;
+
+    private Broadcast open(Counter chunksRead) throws IOException, UnsupportedAudioFileException {
+        return open(chunksRead, WINDOW_NANOS, b -> { });
+    }
+
+    private Broadcast open(Counter chunksRead, long windowNanos, Consumer<Broadcast> onClose)
+            throws IOException, UnsupportedAudioFileException {
+        pcm = new byte[FRAMES * FRAME_SIZE];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (byte) i;
+        }
+
+        AudioFormat format = new AudioFormat(44_100, 16, 2, true, false);
+        Path song = directory.resolve("song.wav");
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), format, FRAMES),
+                AudioFileFormat.Type.WAVE, song.toFile());
+        fileName = song.toString();
+
+        SongCache songCache = new SongCache();
+        return new Broadcast(fileName, songCache.open(fileName), songCache, windowNanos, chunksRead, onClose);
+    }
+
+    private byte[] readAll(AudioSource source) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ByteBuffer chunk;
+        while ((chunk = source.read(READ_SIZE)) != null) {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            output.write(bytes);
+        }
+
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testSubscribersShareOneReader() throws IOException, UnsupportedAudioFileException {
+        Counter chunksRead = new Counter();
+        Broadcast broadcast = open(chunksRead);
+
+        BroadcastSource first = broadcast.subscribe();
+        BroadcastSource second = broadcast.subscribe();
+
+        assertArrayEquals(pcm, readAll(first), "Broadcasting does not work correctly!");
+        long chunksAfterFirst = chunksRead.get();
+        assertArrayEquals(pcm, readAll(second), "Broadcasting does not work correctly!");
+
+        assertEquals(chunksAfterFirst, chunksRead.get(), "The song should be read only once for all subscribers!");
+    }
+
+    @Test
+    public void testSeekDetachesAtFrameAlignedOffset() throws IOException, UnsupportedAudioFileException {
+        Broadcast broadcast = open(new Counter());
+        BroadcastSource subscriber = broadcast.subscribe();
+
+        long offset = FRAMES / 2 * FRAME_SIZE;
+        assertEquals(offset, subscriber.seek(offset), "Seeking does not work correctly!");
+
+        byte[] rest = readAll(subscriber);
+        assertEquals(pcm.length - offset, rest.length, "Seeking does not work correctly!");
+        assertEquals(pcm[(int) offset], rest[0], "Seeking does not work correctly!");
+        assertEquals(0, broadcast.getSubscribers(), "Seeking should leave the broadcast!");
+    }
+
+    @Test
+    public void testBroadcastLeftInsideTheWindowIsClosedWhenItExpires()
+            throws IOException, UnsupportedAudioFileException, InterruptedException {
+        AtomicInteger closed = new AtomicInteger();
+        Broadcast broadcast = open(new Counter(), SHORT_WINDOW_NANOS, b -> closed.incrementAndGet());
+
+        broadcast.subscribe().close();
+        broadcast.expire();
+        assertEquals(0, closed.get(), "A broadcast should stay open for late joiners inside its window!");
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(SHORT_WINDOW_NANOS) * 2);
+        broadcast.expire();
+        broadcast.expire();
+
+        assertEquals(1, closed.get(), "An idle broadcast should be closed once its window expires!");
+        assertNull(broadcast.subscribe(), "An expired broadcast should not accept subscribers!");
+    }
+}
@@ -0,0 +1,44 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PlaybackQueueTest {
+    private static final List<String> SONGS = List.of("first.wav", "second.wav", "third.wav");
+
+    @Test
+    public void testQueueEndsWithoutRepeat() {
+        PlaybackQueue queue = new PlaybackQueue(SONGS, false, false);
+
+        List<String> played = new ArrayList<>();
+        String next;
+        while ((next = queue.next()) != null) {
+            played.add(next);
+        }
+
+        assertEquals(SONGS, played, "Playback queue does not work correctly!");
+    }
+
+    @Test
+    public void testShuffledQueueRepeatsEverySong() {
+        PlaybackQueue queue = new PlaybackQueue(SONGS, true, true, new Random(1));
+
+        for (int pass = 0; pass < 3; pass++) {
+            List<String> played = new ArrayList<>();
+            for (int i = 0; i < SONGS.size(); i++) {
+                played.add(queue.next());
+            }
+
+            assertEquals(SONGS.size(), played.stream().distinct().count(),
+                    "Every song should be played once per pass!");
+        }
+
+        assertNull(new PlaybackQueue(List.of(), true, true).next(), "Empty queue should not repeat!");
+    }
+}
@@ -0,0 +1,77 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SongFileTest {
+    private static final short PCM = 1;
+    private static final short IEEE_FLOAT = 3;
+    private static final int HEADER_SIZE = 44;
+
+    @TempDir
+    Path directory;
+
+    private static byte[] wave(short formatTag, int channels, int dataLength, int declaredDataLength) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes()).putInt(HEADER_SIZE - 8 + dataLength).put("WAVE".getBytes());
+        buffer.put("fmt ".getBytes()).putInt(16).putShort(formatTag).putShort((short) channels)
+                .putInt(44_100).putInt(44_100 * channels * 2).putShort((short) (channels * 2)).putShort((short) 16);
+        buffer.put("data".getBytes()).putInt(declaredDataLength);
+        return buffer.array();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(directory.resolve(name), content);
+    }
+
+    @Test
+    public void testMalformedAndNonPcmFilesAreRejected() throws IOException {
+        Path notRiff = write("text.wav", "definitely not a wave file".getBytes());
+        Path tooShort = write("short.wav", "RIFF".getBytes());
+        Path truncatedFormat = write("format.wav", Arrays.copyOf(wave(PCM, 2, 0, 0), 30));
+        Path floating = write("float.wav", wave(IEEE_FLOAT, 2, 16, 16));
+        Path noData = write("nodata.wav", Arrays.copyOf(wave(PCM, 2, 0, 0), 36));
+
+        for (Path each : new Path[] {notRiff, tooShort, truncatedFormat, floating, noData}) {
+            assertThrows(UnsupportedAudioFileException.class, () -> SongFile.map(each),
+                    "Invalid file " + each.getFileName() + " should not be mapped!");
+        }
+    }
+
+    @Test
+    public void testTruncatedDataIsClampedToWholeFrames() throws IOException, UnsupportedAudioFileException {
+        Path truncated = write("truncated.wav", wave(PCM, 2, 10, 1_000));
+
+        SongFile songFile = SongFile.map(truncated);
+
+        assertEquals(2, songFile.getFormat().getChannels(), "Parsing the fmt chunk does not work correctly!");
+        assertEquals(8, songFile.getDataLength(), "Truncated data should be clamped to whole frames!");
+    }
+
+    @Test
+    public void testReplacedFilesAreRemapped() throws IOException, UnsupportedAudioFileException {
+        SongCache songCache = new SongCache();
+        Path song = write("song.wav", wave(PCM, 2, 16, 16));
+        assertEquals(2, songCache.open(song.toString()).getFormat().getChannels(),
+                "Mapping songs does not work correctly!");
+
+        write("song.wav", wave(PCM, 1, 32, 32));
+        Files.setLastModifiedTime(song, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertEquals(1, songCache.open(song.toString()).getFormat().getChannels(),
+                "Replaced songs should be mapped again!");
+    }
+}
@@ -0,0 +1,199 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.exceptions.NoActiveStreamException;
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+import bg.sofia.uni.fmi.mjt.spotify.server.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.ClientSession;
+import bg.sofia.uni.fmi.mjt.spotify.server.ServerErrorHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingEngineTest {
+    private static final int USER = 1;
+    private static final int OTHER_USER = 2;
+    private static final int FRAMES = 441_000;
+    private static final int SHORT_FRAMES = 4_410;
+    private static final int FRAME_SIZE = 4;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED = 16;
+
+    @TempDir
+    Path directory;
+
+    private final List<SocketChannel> channels = new ArrayList<>();
+    private Selector selector;
+    private MetricsRegistry metrics;
+    private ServerErrorHandler errorHandler;
+    private StreamingEngine engine;
+    private String fileName;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        fileName = writeSong("song.wav", FRAMES);
+
+        selector = Selector.open();
+        errorHandler = new ServerErrorHandler();
+        metrics = new MetricsRegistry();
+        engine = new StreamingEngine(errorHandler, metrics);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        engine.shutdown();
+        errorHandler.close();
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        selector.close();
+    }
+
+    private String writeSong(String name, int frames) throws IOException {
+        AudioFormat format = new AudioFormat(44_100, 16, 2, true, false);
+        Path song = directory.resolve(name);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(new byte[frames * FRAME_SIZE]), format,
+                frames), AudioFileFormat.Type.WAVE, song.toFile());
+        return song.toString();
+    }
+
+    private ClientSession device() throws IOException {
+        SocketChannel serverSide;
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            channels.add(SocketChannel.open(listener.getLocalAddress()));
+            serverSide = listener.accept();
+        }
+        channels.add(serverSide);
+
+        serverSide.configureBlocking(false);
+        SelectionKey key = serverSide.register(selector, SelectionKey.OP_READ);
+        return new ClientSession(key, new BufferPool(BUFFER_SIZE, MAX_POOLED), Runnable::run, () -> { });
+    }
+
+    @Test
+    public void testStopOnOneDeviceKeepsTheOtherDevicePlaying()
+            throws IOException, UnsupportedAudioFileException {
+        ClientSession phone = device();
+        ClientSession laptop = device();
+
+        int phoneStream = engine.play(phone, USER, fileName, "play song");
+        int laptopStream = engine.play(laptop, USER, fileName, "play song");
+
+        engine.stop(phone, USER, StreamingEngine.CURRENT_STREAM);
+
+        assertNull(engine.getStream(phoneStream), "Stopping should end the stream of the same device!");
+        assertNotNull(engine.getStream(laptopStream), "Stopping should not end the stream of another device!");
+        assertFalse(engine.getStream(laptopStream).isEnded(), "Stopping should not end the stream of another device!");
+    }
+
+    @Test
+    public void testStreamsAreControlledByIdFromAnotherConnection()
+            throws IOException, UnsupportedAudioFileException, NoActiveStreamException {
+        ClientSession commands = device();
+        ClientSession phone = device();
+        ClientSession laptop = device();
+
+        int phoneStream = engine.play(phone, USER, fileName, "play song");
+        int laptopStream = engine.play(laptop, USER, fileName, "play song");
+
+        engine.pause(commands, USER, phoneStream);
+
+        assertThrows(NoActiveStreamException.class, () -> engine.pause(phone, USER, phoneStream),
+                "Pausing by stream id does not work correctly!");
+        assertTrue(engine.getStream(laptopStream).pause(), "Pausing should not affect another device!");
+        assertThrows(NoActiveStreamException.class,
+                () -> engine.resume(commands, USER, StreamingEngine.CURRENT_STREAM),
+                "A connection without its own stream should not control the user's other streams!");
+        assertThrows(NoActiveStreamException.class, () -> engine.resume(commands, OTHER_USER, phoneStream),
+                "Users should not control the streams of other users!");
+    }
+
+    @Test
+    public void testQualityChangeIsTranscodedInTheBackground()
+            throws IOException, UnsupportedAudioFileException, InterruptedException {
+        ClientSession phone = device();
+        int stream = engine.play(phone, USER, fileName, "play song");
+
+        engine.setQuality(phone, USER, StreamingEngine.CURRENT_STREAM, Quality.LOW);
+        assertFalse(engine.getStream(stream).isEnded(), "The stream should keep playing while transcoding!");
+
+        SongCache songCache = new SongCache();
+        for (int i = 0; i < 100 && !songCache.hasRendition(fileName, Quality.LOW); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(songCache.hasRendition(fileName, Quality.LOW), "The rendition should be built in the background!");
+        assertEquals(Quality.LOW, engine.getQuality(USER), "Changing the quality does not work correctly!");
+    }
+
+    @Test
+    public void testQualityChangeOfAQueueDoesNotJoinABroadcast()
+            throws IOException, UnsupportedAudioFileException {
+        ClientSession phone = device();
+        new SongCache().rendition(fileName, Quality.LOW);
+
+        int stream = engine.play(phone, USER, new PlaybackQueue(List.of(fileName), false, false), "play-playlist");
+        engine.setQuality(phone, USER, stream, Quality.LOW);
+
+        assertFalse(engine.getStream(stream).isEnded(), "Changing the quality of a queue does not work correctly!");
+        assertEquals(0, metrics.counter("broadcast_subscriptions_total").get(),
+                "Queue streams should read their own copy of the song instead of joining a broadcast!");
+    }
+
+    @Test
+    public void testQueueReportsTracksWhenTheyStart()
+            throws IOException, UnsupportedAudioFileException, InterruptedException {
+        String first = writeSong("first.wav", SHORT_FRAMES);
+        String second = writeSong("second.wav", SHORT_FRAMES);
+        List<String> started = new CopyOnWriteArrayList<>();
+        StreamingEngine reporting = new StreamingEngine(errorHandler, metrics, started::add);
+
+        try {
+            reporting.play(device(), USER, new PlaybackQueue(List.of(first, second), false, false), "play-playlist");
+            assertEquals(List.of(first), started, "The first track should be reported as soon as it starts!");
+
+            for (int i = 0; i < 100 && started.size() < 2; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(List.of(first, second), started, "Every track of a queue should be reported when it starts!");
+        } finally {
+            reporting.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdownFinishesTheRemainingStreams() throws IOException, UnsupportedAudioFileException {
+        engine.play(device(), USER, fileName, "play song");
+        engine.play(device(), USER, new PlaybackQueue(List.of(fileName, fileName), false, true), "play-playlist");
+
+        engine.shutdown();
+
+        assertEquals(0, engine.getActiveStreams(), "Shutting down should finish every remaining stream!");
+    }
+}
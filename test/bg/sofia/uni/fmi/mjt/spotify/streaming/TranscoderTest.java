@@ -0,0 +1,85 @@
+package bg.sofia.uni.fmi.mjt.spotify.streaming;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Quality;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TranscoderTest {
+    private static final int FRAMES = 1_000;
+    private static final float RATE = 44_100;
+    private static final short LEFT = 1_000;
+    private static final short RIGHT = 3_000;
+
+    @TempDir
+    Path directory;
+
+    private Path writeSong() throws IOException {
+        ByteBuffer pcm = ByteBuffer.allocate(FRAMES * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FRAMES; i++) {
+            pcm.putShort(LEFT).putShort(RIGHT);
+        }
+
+        Path song = directory.resolve("song.wav");
+        AudioFormat format = new AudioFormat(RATE, 16, 2, true, false);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm.array()), format, FRAMES),
+                AudioFileFormat.Type.WAVE, song.toFile());
+        return song;
+    }
+
+    @Test
+    public void testLowQualityIsDownsampledMono() throws IOException, UnsupportedAudioFileException {
+        Path target = directory.resolve("song.low.wav");
+        Transcoder.transcode(writeSong(), target, Quality.LOW);
+
+        SongFile rendition = SongFile.map(target);
+        assertEquals(RATE / 2, rendition.getFormat().getSampleRate(), "Downsampling does not work correctly!");
+        assertEquals(1, rendition.getFormat().getChannels(), "Mixing down to mono does not work correctly!");
+        assertEquals(FRAMES / 2 * Short.BYTES, rendition.getDataLength(), "Transcoding does not work correctly!");
+
+        ByteBuffer data = rendition.slice(0, Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals((LEFT + RIGHT) / 2, data.getShort(0), "Mixing down to mono does not work correctly!");
+    }
+
+    @Test
+    public void testRenditionsAreCached() throws IOException, UnsupportedAudioFileException {
+        SongCache songCache = new SongCache();
+        String song = writeSong().toString();
+
+        String first = songCache.rendition(song, Quality.MINIMAL);
+        long builtAt = Path.of(first).toFile().lastModified();
+        String second = songCache.rendition(song, Quality.MINIMAL);
+
+        assertEquals(first, second, "Renditions should be cached!");
+        assertEquals(builtAt, Path.of(second).toFile().lastModified(), "Renditions should not be rebuilt!");
+        assertEquals(8, SongFile.map(Path.of(first)).getFormat().getSampleSizeInBits(),
+                "Reducing the bit depth does not work correctly!");
+    }
+
+    @Test
+    public void testFailedTranscodingRemovesTheTemporaryFile() throws IOException {
+        Path song = writeSong();
+        Path target = Files.createDirectories(directory.resolve("song.low.wav"));
+        Files.writeString(target.resolve("occupied"), "");
+
+        assertThrows(IOException.class, () -> Transcoder.transcode(song, target, Quality.LOW),
+                "Replacing a non-empty directory should fail!");
+        assertFalse(Files.exists(directory.resolve("song.low.wav.tmp")),
+                "A failed transcoding should not leave its temporary file behind!");
+    }
+}
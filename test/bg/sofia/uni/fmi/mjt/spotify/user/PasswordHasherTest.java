@@ -0,0 +1,37 @@
+package bg.sofia.uni.fmi.mjt.spotify.user;
+
+import bg.sofia.uni.fmi.mjt.spotify.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PasswordHasherTest {
+    private static final int ITERATIONS = 1_000;
+    private static final String PASSWORD = "NewPa$$12";
+
+    @Test
+    public void testHashedPasswordsAreSaltedAndVerified() {
+        PasswordHasher hasher = new PasswordHasher(ITERATIONS, new MetricsRegistry());
+        String first = hasher.hash(PASSWORD);
+        String second = hasher.hash(PASSWORD);
+
+        assertNotEquals(first, second, "Hashes should be salted!");
+        assertFalse(first.contains(PASSWORD), "Passwords should not be stored in plain text!");
+        assertTrue(hasher.verify(PASSWORD, first), "Verifying passwords does not work correctly!");
+        assertFalse(hasher.verify("newPa$$12", first), "Wrong passwords should not be accepted!");
+        assertFalse(hasher.needsRehash(first), "Fresh hashes should not need rehashing!");
+    }
+
+    @Test
+    public void testLegacyPlainTextPasswordsAreVerifiedAndUpgraded() {
+        PasswordHasher weak = new PasswordHasher(ITERATIONS, new MetricsRegistry());
+        PasswordHasher hasher = new PasswordHasher(ITERATIONS * 2, new MetricsRegistry());
+
+        assertTrue(hasher.verify("peshko", "peshko"), "Legacy passwords should still be accepted!");
+        assertFalse(hasher.verify("pesho", "peshko"), "Wrong legacy passwords should not be accepted!");
+        assertTrue(hasher.needsRehash("peshko"), "Legacy passwords should be rehashed!");
+        assertTrue(hasher.needsRehash(weak.hash(PASSWORD)), "Weaker hashes should be rehashed!");
+    }
+}
@@ -0,0 +1,90 @@
+package bg.sofia.uni.fmi.mjt.spotify.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserTableTest {
+    private static final int USERS = 10_000;
+
+    @Test
+    public void testUsersAreFoundByIdAndEmail() {
+        UserTable table = new UserTable();
+        User user = new User(0, "pesho@gmail.com", "peshko");
+        User rehashed = new User(0, "pesho@gmail.com", "pbkdf2$1000$salt$key");
+
+        assertTrue(table.add(user), "Adding users does not work correctly!");
+        assertFalse(table.add(new User(1, "pesho@gmail.com", "other")), "Emails should be unique!");
+        assertFalse(table.add(new User(0, "gosho@gmail.com", "other")), "Ids should be unique!");
+
+        assertTrue(table.replace(user, rehashed), "Replacing passwords does not work correctly!");
+        assertFalse(table.replace(user, rehashed), "Stale users should not be replaced!");
+        assertEquals(rehashed, table.get(0), "Finding users by id does not work correctly!");
+        assertEquals(rehashed, table.find("pesho@gmail.com"), "Finding users by email does not work correctly!");
+
+        assertTrue(table.remove(rehashed), "Removing users does not work correctly!");
+        assertNull(table.get(0), "Removed users should not be found!");
+        assertEquals(UserTable.NO_USER, table.idOf("pesho@gmail.com"), "Removed emails should not be found!");
+        assertTrue(table.add(new User(2, "pesho@gmail.com", "peshko")), "Removed emails should be reusable!");
+    }
+
+    @Test
+    public void testTableGrowsAndExposesMapViews() {
+        UserTable table = new UserTable();
+        for (int id = 0; id < USERS; id++) {
+            assertTrue(table.add(new User(id, "user" + id + "@bench.com", "pass" + id)),
+                    "Adding users does not work correctly!");
+        }
+
+        Map<Integer, User> users = table.asMap();
+        Map<String, Integer> emails = table.emailIndex();
+
+        assertEquals(USERS, users.size(), "Growing the table does not work correctly!");
+        assertEquals(USERS, users.entrySet().size(), "Iterating users does not work correctly!");
+        for (int id = 0; id < USERS; id++) {
+            assertEquals("pass" + id, users.get(id).password(), "Finding users by id does not work correctly!");
+            assertEquals(id, emails.get("user" + id + "@bench.com"), "Finding ids by email does not work correctly!");
+        }
+        assertFalse(emails.containsKey("user" + USERS + "@bench.com"), "Unknown emails should not be found!");
+    }
+
+    @Test
+    public void testNegativeIdsDoNotMatchFreeSlots() {
+        UserTable table = new UserTable();
+        User user = new User(0, "pesho@gmail.com", "peshko");
+        table.add(user);
+        table.remove(user);
+
+        assertNull(table.get(-1), "Negative ids should not match empty slots!");
+        assertNull(table.get(-2), "Negative ids should not match deleted slots!");
+        assertFalse(table.asMap().containsKey(-1), "Negative ids should not be found!");
+    }
+
+    @Test
+    public void testReplacedPasswordsAreCompacted() {
+        UserTable table = new UserTable();
+        String padding = "x".repeat(1_000);
+
+        for (int id = 0; id < 10; id++) {
+            table.add(new User(id, "user" + id + "@bench.com", "pass" + id));
+        }
+
+        User current = table.get(0);
+        for (int i = 0; i < 3_000; i++) {
+            User next = new User(0, current.email(), padding + i);
+            assertTrue(table.replace(current, next), "Replacing passwords does not work correctly!");
+            current = next;
+        }
+
+        assertEquals(current, table.get(0), "Compacting records does not work correctly!");
+        for (int id = 1; id < 10; id++) {
+            assertEquals(new User(id, "user" + id + "@bench.com", "pass" + id), table.find("user" + id + "@bench.com"),
+                    "Compacting records should keep the other users!");
+        }
+    }
+}